@@ -21,6 +21,7 @@ package net.technicpack.launchercore.auth;
 
 import net.technicpack.launchercore.exception.AuthenticationNetworkFailureException;
 import net.technicpack.launchercore.install.user.User;
+import net.technicpack.launchercore.util.HttpClient;
 import net.technicpack.launchercore.util.Utils;
 import org.apache.commons.io.IOUtils;
 
@@ -51,8 +52,7 @@ public class AuthenticationService {
 
 	private static String postJson(String url, String data) throws IOException {
 		byte[] rawData = data.getBytes("UTF-8");
-		HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-		connection.setUseCaches(false);
+		HttpURLConnection connection = HttpClient.open(new URL(url));
 		connection.setDoOutput(true);
 		connection.setDoInput(true);
 		connection.setConnectTimeout(15000);
@@ -70,7 +70,7 @@ public class AuthenticationService {
 		InputStream stream = null;
         String returnable = null;
 		try {
-			stream = connection.getInputStream();
+			stream = HttpClient.getBody(connection);
             returnable = IOUtils.toString(stream);
 		} catch (IOException e) {
 			stream = connection.getErrorStream();
@@ -79,10 +79,7 @@ public class AuthenticationService {
 				throw e;
 			}
 		} finally {
-            try {
-                if (stream != null)
-                    stream.close();
-            } catch (IOException e) {}
+            HttpClient.release(connection, stream);
         }
 
         return returnable;
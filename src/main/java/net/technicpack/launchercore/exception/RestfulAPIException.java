@@ -26,10 +26,16 @@ public class RestfulAPIException extends IOException {
 
 	private final Throwable cause;
 	private final String message;
+	private final int responseCode;
 
-	public RestfulAPIException(String message, Throwable cause) {
+	public RestfulAPIException(String message, Throwable cause, int responseCode) {
 		this.cause = cause;
 		this.message = message;
+		this.responseCode = responseCode;
+	}
+
+	public RestfulAPIException(String message, Throwable cause) {
+		this(message, cause, -1);
 	}
 
 	public RestfulAPIException(Throwable cause) {
@@ -53,4 +59,11 @@ public class RestfulAPIException extends IOException {
 	public String getMessage() {
 		return message;
 	}
+
+	/**
+	 * @return The HTTP status the server answered with, or -1 if no answer was received
+	 */
+	public int getResponseCode() {
+		return responseCode;
+	}
 }
@@ -5,15 +5,16 @@ import net.technicpack.launchercore.install.user.IAuthListener;
 import net.technicpack.launchercore.install.user.User;
 import net.technicpack.launchercore.mirror.MirrorStore;
 import net.technicpack.launchercore.restful.PackInfo;
+import net.technicpack.launchercore.restful.PlatformConstants;
 import net.technicpack.launchercore.restful.RestObject;
 import net.technicpack.launchercore.restful.platform.PlatformPackInfo;
 import net.technicpack.launchercore.restful.solder.FullModpacks;
 import net.technicpack.launchercore.restful.solder.Solder;
 import net.technicpack.launchercore.restful.solder.SolderConstants;
 import net.technicpack.launchercore.restful.solder.SolderPackInfo;
+import net.technicpack.launchercore.util.RequestScheduler;
 import net.technicpack.launchercore.util.Utils;
 
-import java.awt.EventQueue;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedList;
@@ -24,10 +25,29 @@ public class AvailablePackList implements IAuthListener, PackRefreshListener {
 	private IPackStore mPackStore;
 	private Collection<String> mForcedSolderPacks = new ArrayList<String>();
 	private List<IPackListener> mPackListeners = new LinkedList<IPackListener>();
+	private final PackUpdateNotifier mNotifier;
     private final MirrorStore mirrorStore;
+	private volatile User mUser;
+
+	//Starts fetching the selected pack's builds as soon as its info comes in
+	private final IPackListener mPrefetchListener = new IPackListener() {
+		@Override
+		public void updatePack(InstalledPack pack) {
+			prefetchIfSelected(pack);
+		}
+
+		@Override
+		public void updatePacks(Collection<InstalledPack> packs) {
+			for (InstalledPack pack : packs) {
+				prefetchIfSelected(pack);
+			}
+		}
+	};
 
 	public AvailablePackList(IPackStore packStore, MirrorStore mirrorStore) {
 		this.mPackStore = packStore;
+		this.mNotifier = new PackUpdateNotifier(packStore, mPackListeners);
+		this.mPackListeners.add(mPrefetchListener);
         this.mirrorStore = mirrorStore;
 		//this.mPackStore.put(new AddPack());
 	}
@@ -61,14 +81,7 @@ public class AvailablePackList implements IAuthListener, PackRefreshListener {
 
 	@Override
 	public void refreshPack(InstalledPack pack) {
-		final InstalledPack threadPack = pack;
-		final AvailablePackList packList = this;
-		EventQueue.invokeLater(new Runnable() {
-			@Override
-			public void run() {
-				packList.triggerUpdateListeners(threadPack);
-			}
-		});
+		mNotifier.packChanged(pack);
 	}
 
 	public void add(InstalledPack pack) {
@@ -88,6 +101,7 @@ public class AvailablePackList implements IAuthListener, PackRefreshListener {
 	public void remove(InstalledPack pack) {
 		mPackStore.remove(pack.getName());
 		mPackStore.save();
+		ContentStore.getInstance().releasePack(pack.getName());
 	}
 
 	public InstalledPack getOffsetPack(int offset) {
@@ -111,6 +125,16 @@ public class AvailablePackList implements IAuthListener, PackRefreshListener {
 		{
 			mPackStore.setSelectedIndex(index);
 			mPackStore.save();
+			ModpackPrefetcher.getInstance().prefetch(pack, mUser);
+		}
+	}
+
+	private void prefetchIfSelected(InstalledPack pack) {
+		List<String> packNames = mPackStore.getPackNames();
+		int selected = mPackStore.getSelectedIndex();
+
+		if (selected >= 0 && selected < packNames.size() && packNames.get(selected).equals(pack.getName())) {
+			ModpackPrefetcher.getInstance().prefetch(pack, mUser);
 		}
 	}
 
@@ -118,49 +142,23 @@ public class AvailablePackList implements IAuthListener, PackRefreshListener {
 		mPackStore.save();
 	}
 
+	/**
+	 * @return How far a pack is from the selected one, going either way around the list.  Packs next to the
+	 *         selection are the ones on screen, so they're loaded first.
+	 */
+	private int getLoadPriority(int index, int selected, int size) {
+		int distance = Math.abs(index - selected);
+		return Math.min(distance, size - distance);
+	}
+
 	public void reloadAllPacks(User user) {
+		mUser = user;
 		final User threadUser = user;
 		final AvailablePackList packList = this;
+		RequestScheduler scheduler = RequestScheduler.getInstance();
 
-		for (final String packName : mPackStore.getPackNames()) {
-			final InstalledPack pack = mPackStore.getInstalledPacks().get(packName);
-			if (pack.isPlatform()) {
-				Thread thread = new Thread(pack.getName() + " Info Loading Thread") {
-					@Override
-					public void run() {
-						try {
-							String name = pack.getName();
-							PlatformPackInfo platformPackInfo = PlatformPackInfo.getPlatformPackInfo(name);
-							PackInfo info = platformPackInfo;
-							if (platformPackInfo.hasSolder()) {
-                                info = SolderPackInfo.getSolderPackInfo(platformPackInfo.getSolder(), name, threadUser);
-							}
-
-							info.getLogo();
-							info.getIcon();
-							info.getBackground();
-							pack.setInfo(info);
-							pack.setRefreshListener(packList);
-						} catch (RestfulAPIException e) {
-							Utils.getLogger().log(Level.WARNING, "Unable to load platform pack " + pack.getName(), e);
-							pack.setLocalOnly();
-							pack.setRefreshListener(packList);
-						}
-
-						EventQueue.invokeLater(new Runnable() {
-							@Override
-							public void run() {
-								packList.triggerUpdateListeners(pack);
-							}
-						});
-					}
-				};
-
-				thread.start();
-			}
-		}
-
-		Thread thread = new Thread("Technic Solder Defaults") {
+		//The pack lists come first, everything they add is loaded after
+		scheduler.submit(RequestScheduler.getHost(SolderConstants.TECHNIC), 0, new Runnable() {
 			@Override
 			public void run() {
 				int index = 0;
@@ -178,30 +176,15 @@ public class AvailablePackList implements IAuthListener, PackRefreshListener {
 							pack.setRefreshListener(packList);
 							pack.setInfo(info);
 
-                            final InstalledPack deferredPack = pack;
-                            final int deferredIndex = index;
-                            EventQueue.invokeLater(new Runnable() {
-                                @Override
-                                public void run() {
-                                    packList.triggerUpdateListeners(deferredPack);
-                                    mPackStore.reorder(deferredIndex, deferredPack.getName());
-                                }
-                            });
+							mNotifier.packMoved(pack, index);
 						} else {
 							pack = new InstalledPack(mirrorStore, name, false);
 							pack.setRefreshListener(packList);
+							pack.setLoadPriority(index);
 							pack.setInfo(info);
 
-                            final InstalledPack deferredPack = pack;
-                            final int deferredIndex = index;
-                            EventQueue.invokeLater(new Runnable() {
-                                @Override
-                                public void run() {
-                                    mPackStore.add(deferredPack);
-                                    packList.triggerUpdateListeners(deferredPack);
-                                    mPackStore.reorder(deferredIndex, deferredPack.getName());
-                                }
-                            });
+							mNotifier.packAdded(pack);
+							mNotifier.packMoved(pack, index);
 						}
 
 
@@ -218,14 +201,12 @@ public class AvailablePackList implements IAuthListener, PackRefreshListener {
 					}
 				}
 			}
-		};
-		thread.start();
-
-		thread = new Thread("Forced Solder Thread") {
+		});
 
-			@Override
-			public void run() {
-				for (String solder : mForcedSolderPacks) {
+		for (final String solder : mForcedSolderPacks) {
+			scheduler.submit(RequestScheduler.getHost(solder), 0, new Runnable() {
+				@Override
+				public void run() {
 					try {
 						SolderPackInfo info = SolderPackInfo.getSolderPackInfo(solder);
 						if (info == null) {
@@ -241,35 +222,59 @@ public class AvailablePackList implements IAuthListener, PackRefreshListener {
 							pack = mPackStore.getInstalledPacks().get(info.getName());
 							pack.setInfo(info);
 
-                            final InstalledPack deferredPack = pack;
-                            EventQueue.invokeLater(new Runnable() {
-                                @Override
-                                public void run() {
-                                    packList.triggerUpdateListeners(deferredPack);
-                                }
-                            });
+							mNotifier.packChanged(pack);
 						} else {
 							pack = new InstalledPack(mirrorStore, info.getName(), true);
 							pack.setRefreshListener(packList);
 							pack.setInfo(info);
 
-                            final InstalledPack deferredPack = pack;
-                            EventQueue.invokeLater(new Runnable() {
-                                @Override
-                                public void run() {
-                                    mPackStore.add(deferredPack);
-                                    packList.triggerUpdateListeners(deferredPack);
-                                }
-                            });
+							mNotifier.packAdded(pack);
 						}
 
 					} catch (RestfulAPIException e) {
 						Utils.getLogger().log(Level.WARNING, "Unable to load forced solder pack " + solder, e);
 					}
 				}
+			});
+		}
+
+		List<String> packNames = mPackStore.getPackNames();
+		int selected = mPackStore.getSelectedIndex();
+
+		for (int i = 0; i < packNames.size(); i++) {
+			final InstalledPack pack = mPackStore.getInstalledPacks().get(packNames.get(i));
+			if (!pack.isPlatform()) {
+				continue;
 			}
-		};
 
-		thread.start();
+			int priority = getLoadPriority(i, selected, packNames.size());
+			pack.setLoadPriority(priority);
+
+			scheduler.submit(RequestScheduler.getHost(PlatformConstants.API), priority, new Runnable() {
+				@Override
+				public void run() {
+					try {
+						String name = pack.getName();
+						PlatformPackInfo platformPackInfo = PlatformPackInfo.getPlatformPackInfo(name);
+						PackInfo info = platformPackInfo;
+						if (platformPackInfo.hasSolder()) {
+                            info = SolderPackInfo.getSolderPackInfo(platformPackInfo.getSolder(), name, threadUser);
+						}
+
+						info.getLogo();
+						info.getIcon();
+						info.getBackground();
+						pack.setInfo(info);
+						pack.setRefreshListener(packList);
+					} catch (RestfulAPIException e) {
+						Utils.getLogger().log(Level.WARNING, "Unable to load platform pack " + pack.getName(), e);
+						pack.setLocalOnly();
+						pack.setRefreshListener(packList);
+					}
+
+					mNotifier.packChanged(pack);
+				}
+			});
+		}
 	}
 }
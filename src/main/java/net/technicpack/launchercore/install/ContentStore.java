@@ -0,0 +1,213 @@
+/*
+ * This file is part of Technic Launcher Core.
+ * Copyright (C) 2013 Syndicate, LLC
+ *
+ * Technic Launcher Core is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Technic Launcher Core is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * as well as a copy of the GNU Lesser General Public License,
+ * along with Technic Launcher Core.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.technicpack.launchercore.install;
+
+import com.google.gson.JsonSyntaxException;
+import net.technicpack.launchercore.util.Utils;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+
+/**
+ * A download cache shared by every pack, which stores files by their md5 hash.  Packs that use the
+ * same version of a mod only have to download it once; the other packs copy it out of the store.
+ * <p>
+ * Each pack records the hashes it references, and a stored file is only evicted once no pack
+ * references it anymore.
+ */
+public class ContentStore {
+	private static final long STALE_TEMP_MILLIS = 24 * 60 * 60 * 1000;
+	private static ContentStore instance;
+
+	private transient File directory;
+	private Map<String, Set<String>> references = new HashMap<String, Set<String>>();
+
+	public ContentStore() {
+
+	}
+
+	public static synchronized ContentStore getInstance() {
+		if (instance == null) {
+			instance = load(new File(Utils.getCacheDirectory(), "objects"));
+		}
+		return instance;
+	}
+
+	private static ContentStore load(File directory) {
+		File refs = new File(directory, "references.json");
+		ContentStore store = null;
+
+		if (refs.exists()) {
+			try {
+				String json = FileUtils.readFileToString(refs, Charset.forName("UTF-8"));
+				store = Utils.getGson().fromJson(json, ContentStore.class);
+			} catch (JsonSyntaxException e) {
+				Utils.getLogger().log(Level.WARNING, "Unable to load content store references from " + refs);
+			} catch (IOException e) {
+				Utils.getLogger().log(Level.WARNING, "Unable to load content store references from " + refs);
+			}
+		}
+
+		if (store == null || store.references == null) {
+			store = new ContentStore();
+		}
+
+		store.directory = directory;
+		return store;
+	}
+
+	private synchronized void save() {
+		File refs = new File(directory, "references.json");
+		String json = Utils.getGson().toJson(this);
+
+		try {
+			FileUtils.writeStringToFile(refs, json, Charset.forName("UTF-8"));
+		} catch (IOException e) {
+			Utils.getLogger().log(Level.WARNING, "Unable to save content store references " + refs);
+		}
+	}
+
+	public File getFile(String md5) {
+		String hash = md5.toLowerCase();
+		return new File(new File(directory, hash.substring(0, 2)), hash);
+	}
+
+	/**
+	 * Copies a stored file to the given location.
+	 *
+	 * @return True if the store had the file, false if it has to be downloaded
+	 */
+	public boolean copyTo(String md5, File destination) throws IOException {
+		File stored = getFile(md5);
+
+		if (!stored.exists()) {
+			return false;
+		}
+
+		FileUtils.copyFile(stored, destination);
+		return true;
+	}
+
+	/**
+	 * Adds a file to the store, if a file with that hash isn't stored already.  The caller is responsible
+	 * for having verified the file against the hash.
+	 */
+	public void add(String md5, File file) throws IOException {
+		File stored = getFile(md5);
+
+		if (stored.exists() && stored.length() == file.length()) {
+			return;
+		}
+
+		//Copy next to the final location and then move it in, so a concurrent reader never sees half a file
+		File temp = new File(stored.getParentFile(), stored.getName() + "." + Thread.currentThread().getId() + ".tmp");
+		FileUtils.copyFile(file, temp);
+
+		FileUtils.deleteQuietly(stored);
+		if (!temp.renameTo(stored)) {
+			FileUtils.deleteQuietly(temp);
+			throw new IOException("Unable to move " + temp.getAbsolutePath() + " into the content store.");
+		}
+	}
+
+	/**
+	 * Removes a stored file that turned out not to match its hash.
+	 */
+	public void remove(String md5) {
+		FileUtils.deleteQuietly(getFile(md5));
+	}
+
+	/**
+	 * Replaces the set of hashes the given pack references.
+	 */
+	public synchronized void setReferences(String packName, Collection<String> hashes) {
+		Set<String> packHashes = new HashSet<String>(hashes.size());
+		for (String hash : hashes) {
+			packHashes.add(hash.toLowerCase());
+		}
+
+		references.put(packName, packHashes);
+		save();
+	}
+
+	/**
+	 * Drops every reference the given pack holds, for when it is removed from the launcher.
+	 */
+	public synchronized void releasePack(String packName) {
+		if (references.remove(packName) != null) {
+			save();
+		}
+	}
+
+	public synchronized int getReferenceCount(String md5) {
+		String hash = md5.toLowerCase();
+		int count = 0;
+
+		for (Set<String> packHashes : references.values()) {
+			if (packHashes.contains(hash)) {
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Deletes every stored file that no pack references.
+	 */
+	public synchronized void evictUnreferenced() {
+		Set<String> referenced = new HashSet<String>();
+		for (Set<String> packHashes : references.values()) {
+			referenced.addAll(packHashes);
+		}
+
+		File[] prefixes = directory.listFiles();
+		if (prefixes == null) {
+			return;
+		}
+
+		for (File prefix : prefixes) {
+			File[] files = prefix.listFiles();
+			if (files == null) {
+				continue;
+			}
+
+			for (File file : files) {
+				String name = file.getName();
+				if (name.endsWith(".tmp")) {
+					//Might belong to an add that is still running, only clean it up once it's clearly abandoned
+					if (System.currentTimeMillis() - file.lastModified() > STALE_TEMP_MILLIS) {
+						FileUtils.deleteQuietly(file);
+					}
+				} else if (!referenced.contains(name)) {
+					FileUtils.deleteQuietly(file);
+				}
+			}
+		}
+	}
+}
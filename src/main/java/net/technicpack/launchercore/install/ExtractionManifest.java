@@ -0,0 +1,215 @@
+/*
+ * This file is part of Technic Launcher Core.
+ * Copyright (C) 2013 Syndicate, LLC
+ *
+ * Technic Launcher Core is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Technic Launcher Core is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * as well as a copy of the GNU Lesser General Public License,
+ * along with Technic Launcher Core.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.technicpack.launchercore.install;
+
+import com.google.gson.JsonSyntaxException;
+import net.technicpack.launchercore.exception.CacheDeleteException;
+import net.technicpack.launchercore.util.Utils;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.zip.ZipEntry;
+
+/**
+ * Records which files each archive extracted into a directory, so an archive that hasn't changed doesn't
+ * have to be extracted again, and the files of an archive that went away can be removed without wiping
+ * the whole directory.
+ * <p>
+ * Manifests are kept in memory once loaded and written out by {@link #saveAll()}.
+ */
+public class ExtractionManifest {
+	private static final String MANIFEST_NAME = ".extracted.json";
+	private static final Map<File, ExtractionManifest> manifests = new HashMap<File, ExtractionManifest>();
+
+	private Map<String, ExtractedArchive> archives = new HashMap<String, ExtractedArchive>();
+	private transient File destination;
+	private transient boolean isNew;
+	private transient boolean dirty;
+
+	public ExtractionManifest() {
+
+	}
+
+	public static synchronized ExtractionManifest forDestination(File destination) {
+		File key = destination.getAbsoluteFile();
+		ExtractionManifest manifest = manifests.get(key);
+
+		if (manifest == null) {
+			manifest = load(key);
+			manifests.put(key, manifest);
+		}
+
+		return manifest;
+	}
+
+	private static ExtractionManifest load(File destination) {
+		File manifestFile = new File(destination, MANIFEST_NAME);
+		ExtractionManifest manifest = null;
+
+		if (manifestFile.exists()) {
+			try {
+				String json = FileUtils.readFileToString(manifestFile, Charset.forName("UTF-8"));
+				manifest = Utils.getGson().fromJson(json, ExtractionManifest.class);
+			} catch (JsonSyntaxException e) {
+				Utils.getLogger().log(Level.WARNING, "Unable to load extraction manifest from " + manifestFile);
+			} catch (IOException e) {
+				Utils.getLogger().log(Level.WARNING, "Unable to load extraction manifest from " + manifestFile);
+			}
+		}
+
+		if (manifest == null || manifest.archives == null) {
+			manifest = new ExtractionManifest();
+			manifest.isNew = true;
+		}
+
+		manifest.destination = destination;
+		return manifest;
+	}
+
+	public static synchronized void saveAll() {
+		for (ExtractionManifest manifest : manifests.values()) {
+			manifest.save();
+		}
+	}
+
+	private synchronized void save() {
+		if (!dirty) {
+			return;
+		}
+
+		File manifestFile = new File(destination, MANIFEST_NAME);
+		String json = Utils.getGson().toJson(this);
+
+		try {
+			FileUtils.writeStringToFile(manifestFile, json, Charset.forName("UTF-8"));
+			dirty = false;
+			isNew = false;
+		} catch (IOException e) {
+			Utils.getLogger().log(Level.WARNING, "Unable to save extraction manifest " + manifestFile);
+		}
+	}
+
+	/**
+	 * Whether nothing has ever been recorded for this directory, in which case there is no telling what in it
+	 * came from which archive.
+	 */
+	public synchronized boolean isNew() {
+		return isNew && archives.isEmpty();
+	}
+
+	public synchronized Set<String> getArchives() {
+		return new HashSet<String>(archives.keySet());
+	}
+
+	/**
+	 * Whether the archive with the given hash was extracted here, and every file it extracted is still
+	 * there with the size it was written with.  Files are only checked by size, not read back, so an
+	 * edit that keeps a file's size goes unnoticed.
+	 */
+	public synchronized boolean isExtracted(String archive, String md5) {
+		ExtractedArchive extracted = archives.get(archive);
+
+		if (md5 == null || extracted == null || extracted.files == null || !md5.equalsIgnoreCase(extracted.md5)) {
+			return false;
+		}
+
+		for (Map.Entry<String, ExtractedFile> file : extracted.files.entrySet()) {
+			File output = new File(destination, file.getKey());
+			long size = output.length();
+
+			if (size != file.getValue().size || (size == 0 && !output.exists())) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Deletes the files the given archive extracted and forgets about it.  Files that another archive also
+	 * extracted are left alone.
+	 */
+	public synchronized void release(String archive) throws CacheDeleteException {
+		ExtractedArchive extracted = archives.remove(archive);
+
+		if (extracted == null) {
+			return;
+		}
+
+		dirty = true;
+
+		if (extracted.files == null) {
+			return;
+		}
+
+		Set<String> stillOwned = new HashSet<String>();
+		for (ExtractedArchive other : archives.values()) {
+			if (other.files != null) {
+				stillOwned.addAll(other.files.keySet());
+			}
+		}
+
+		for (String path : extracted.files.keySet()) {
+			if (stillOwned.contains(path)) {
+				continue;
+			}
+
+			File output = new File(destination, path);
+			if (output.exists() && !output.delete()) {
+				throw new CacheDeleteException(output.getAbsolutePath());
+			}
+		}
+	}
+
+	/**
+	 * Records the files an archive just extracted.
+	 */
+	public synchronized void record(String archive, String md5, Collection<ZipEntry> entries) {
+		ExtractedArchive extracted = new ExtractedArchive();
+		extracted.md5 = md5;
+		extracted.files = new HashMap<String, ExtractedFile>(entries.size());
+
+		for (ZipEntry entry : entries) {
+			ExtractedFile file = new ExtractedFile();
+			file.size = new File(destination, entry.getName()).length();
+			extracted.files.put(entry.getName(), file);
+		}
+
+		archives.put(archive, extracted);
+		dirty = true;
+	}
+
+	private static class ExtractedArchive {
+		private String md5;
+		private Map<String, ExtractedFile> files;
+	}
+
+	private static class ExtractedFile {
+		private long size;
+	}
+}
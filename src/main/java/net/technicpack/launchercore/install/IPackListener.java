@@ -1,5 +1,13 @@
 package net.technicpack.launchercore.install;
 
+import java.util.Collection;
+
 public interface IPackListener {
 	void updatePack(InstalledPack pack);
+
+	/**
+	 * Called with every pack that changed during a burst of updates, such as the pack list loading, once
+	 * the whole burst has been applied to the pack store.
+	 */
+	void updatePacks(Collection<InstalledPack> packs);
 }
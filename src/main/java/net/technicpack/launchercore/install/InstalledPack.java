@@ -23,7 +23,9 @@ import net.technicpack.launchercore.mirror.MirrorStore;
 import net.technicpack.launchercore.restful.PackInfo;
 import net.technicpack.launchercore.restful.Resource;
 import net.technicpack.launchercore.mirror.download.Download;
-import net.technicpack.launchercore.util.MD5Utils;
+import net.technicpack.launchercore.mirror.download.DownloadPriority;
+import net.technicpack.launchercore.util.DigestIndex;
+import net.technicpack.launchercore.util.RequestScheduler;
 import net.technicpack.launchercore.util.ResourceUtils;
 import net.technicpack.launchercore.util.Utils;
 import org.apache.commons.io.FileUtils;
@@ -67,6 +69,7 @@ public class InstalledPack {
 	private String directory;
 
 	private transient boolean isLocalOnly;
+	private transient int loadPriority;
 
 	public InstalledPack(MirrorStore mirrorStore, String name, boolean platform, String build, String directory) {
 		this();
@@ -93,6 +96,13 @@ public class InstalledPack {
         this.mirrorStore = mirrorStore;
     }
 
+	/**
+	 * Sets how soon this pack's images are fetched compared to other packs', lower being sooner.
+	 */
+	public void setLoadPriority(int loadPriority) {
+		this.loadPriority = loadPriority;
+	}
+
 	public void setRefreshListener(PackRefreshListener refreshListener) {
 		this.refreshListener = refreshListener;
 	}
@@ -291,7 +301,7 @@ public class InstalledPack {
             boolean reloadImage = (url.isEmpty() || md5.isEmpty());
 
             if (!reloadImage) {
-                String fileMd5 = MD5Utils.getMD5(file);
+                String fileMd5 = DigestIndex.getInstance().getMD5(file);
 
                 if (fileMd5 != null && !fileMd5.isEmpty())
                     reloadImage = fileMd5.equalsIgnoreCase(md5);
@@ -318,17 +328,16 @@ public class InstalledPack {
 		}
 
 		downloading.get(image).set(true);
-		final String name = getName();
 		final InstalledPack pack = this;
         final MirrorStore mirror = mirrorStore;
-		Thread thread = new Thread(name + " Image Download Worker") {
+		RequestScheduler.getInstance().submit(RequestScheduler.getHost(url), loadPriority, new Runnable() {
 			@Override
 			public void run() {
 				try {
 					if (temp.exists()) {
-						System.out.println("Pack: " + getName() + " Calculated MD5: " + MD5Utils.getMD5(temp) + " Required MD5: " + md5);
+						System.out.println("Pack: " + getName() + " Calculated MD5: " + DigestIndex.getInstance().getMD5(temp) + " Required MD5: " + md5);
 					}
-					Download download = mirror.downloadFile(url, temp.getName(), temp.getAbsolutePath());
+					Download download = mirror.downloadFile(url, temp.getName(), temp.getAbsolutePath(), DownloadPriority.COSMETIC);
 					BufferedImage newImage;
 					newImage = ImageIO.read(download.getOutFile());
 					image.set(newImage);
@@ -341,8 +350,7 @@ public class InstalledPack {
 					e.printStackTrace();
 				}
 			}
-		};
-		thread.start();
+		});
 	}
 
 	public String getName() {
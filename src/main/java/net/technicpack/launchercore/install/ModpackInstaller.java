@@ -30,6 +30,7 @@ import net.technicpack.launchercore.install.tasks.InstallTasksQueue;
 import net.technicpack.launchercore.install.tasks.VerifyVersionFilePresentTask;
 import net.technicpack.launchercore.install.user.User;
 import net.technicpack.launchercore.minecraft.CompleteVersion;
+import net.technicpack.launchercore.minecraft.LibraryUrlCache;
 import net.technicpack.launchercore.mirror.MirrorStore;
 import net.technicpack.launchercore.restful.Modpack;
 import net.technicpack.launchercore.restful.PackInfo;
@@ -37,15 +38,15 @@ import net.technicpack.launchercore.restful.PlatformConstants;
 import net.technicpack.launchercore.util.*;
 
 import net.technicpack.launchercore.util.verifiers.ValidZipFileVerifier;
-import org.apache.commons.io.FileUtils;
 
 import javax.swing.JOptionPane;
 import java.awt.Component;
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.Charset;
 
 public class ModpackInstaller {
+	private static final int CONCURRENT_DOWNLOADS = 4;
+
 	private final DownloadListener listener;
 	private final InstalledPack installedPack;
 	private String build;
@@ -60,17 +61,25 @@ public class ModpackInstaller {
 	}
 
 	public CompleteVersion installPack(Component component, User user) throws IOException {
-		InstallTasksQueue queue = new InstallTasksQueue(this.listener, mirrorStore);
+		InstallTasksQueue queue = new InstallTasksQueue(this.listener, mirrorStore, CONCURRENT_DOWNLOADS);
 		queue.AddTask(new InitPackDirectoryTask(this.installedPack));
 
 		PackInfo packInfo = this.installedPack.getInfo();
-		Modpack modpack = packInfo.getModpack(this.build, user);
+		//Usually fetched in the background already, while the pack was selected
+		Modpack modpack = ModpackPrefetcher.getInstance().getModpack(packInfo, this.build, user);
 		String minecraft = modpack.getMinecraft();
 
+		File fmlLibs = new File(installedPack.getInstalledDirectory(), "lib");
+		EnsureFileTask fmlLibsTask = null;
 		if (minecraft.startsWith("1.5")) {
-			queue.AddTask(new EnsureFileTask(new File(Utils.getCacheDirectory(), "fml_libs15.zip"), new ValidZipFileVerifier(), new File(installedPack.getInstalledDirectory(), "lib"), "http://mirror.technicpack.net/Technic/lib/fml/fml_libs15.zip"));
+			fmlLibsTask = new EnsureFileTask(new File(Utils.getCacheDirectory(), "fml_libs15.zip"), new ValidZipFileVerifier(), fmlLibs, "http://mirror.technicpack.net/Technic/lib/fml/fml_libs15.zip");
 		} else if (minecraft.startsWith("1.4")) {
-			queue.AddTask(new EnsureFileTask(new File(Utils.getCacheDirectory(), "fml_libs.zip"), new ValidZipFileVerifier(), new File(installedPack.getInstalledDirectory(), "lib"), "http://mirror.technicpack.net/Technic/lib/fml/fml_libs.zip"));
+			fmlLibsTask = new EnsureFileTask(new File(Utils.getCacheDirectory(), "fml_libs.zip"), new ValidZipFileVerifier(), fmlLibs, "http://mirror.technicpack.net/Technic/lib/fml/fml_libs.zip");
+		}
+
+		if (fmlLibsTask != null) {
+			fmlLibsTask.setExtractionManifest(ExtractionManifest.forDestination(fmlLibs));
+			queue.AddTask(fmlLibsTask);
 		}
 
 		queue.RunAllTasks();
@@ -100,6 +109,9 @@ public class ModpackInstaller {
 				queue.AddTask(new InstallMinecraftIfNecessaryTask(this.installedPack, minecraft));
 	
 		queue.RunAllTasks();
+		DigestIndex.getInstance().save();
+		ExtractionManifest.saveAll();
+		LibraryUrlCache.getInstance().save();
 	
 		Version versionFile = new Version(build, false);
 		versionFile.save(installedPack.getBinDir());
@@ -114,7 +126,7 @@ public class ModpackInstaller {
 		if (versionFile.exists()) {
 			version = Version.load(versionFile);
 		} else {
-			Utils.pingHttpURL(PlatformConstants.getDownloadCountUrl(this.installedPack.getName()), mirrorStore);
+			Utils.sendHit(PlatformConstants.getDownloadCountUrl(this.installedPack.getName()), mirrorStore);
 			Utils.sendTracking("installModpack", this.installedPack.getName(), this.installedPack.getBuild());
 		}
 		return version;
@@ -141,7 +153,6 @@ public class ModpackInstaller {
 			throw new PackNotAvailableOfflineException(installedPack.getDisplayName());
 		}
 
-		String json = FileUtils.readFileToString(versionFile, Charset.forName("UTF-8"));
-		return Utils.getMojangGson().fromJson(json, CompleteVersion.class);
+		return CompleteVersion.load(versionFile);
 	}
 }
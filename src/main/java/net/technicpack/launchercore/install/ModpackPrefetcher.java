@@ -0,0 +1,142 @@
+/*
+ * This file is part of Technic Launcher Core.
+ * Copyright (C) 2013 Syndicate, LLC
+ *
+ * Technic Launcher Core is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Technic Launcher Core is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * as well as a copy of the GNU Lesser General Public License,
+ * along with Technic Launcher Core.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.technicpack.launchercore.install;
+
+import net.technicpack.launchercore.exception.BuildInaccessibleException;
+import net.technicpack.launchercore.install.user.User;
+import net.technicpack.launchercore.restful.Modpack;
+import net.technicpack.launchercore.restful.PackInfo;
+import net.technicpack.launchercore.restful.solder.SolderPackInfo;
+import net.technicpack.launchercore.util.RequestScheduler;
+import net.technicpack.launchercore.util.Utils;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+/**
+ * Fetches the build manifests of the selected pack in the background, so that when play is pressed the
+ * install only has to revalidate them with the pack's Solder instead of downloading them then.  Manifests
+ * go through the REST cache, so the install's request comes back as a 304 when nothing has changed.
+ */
+public class ModpackPrefetcher {
+	//How long a prefetched build isn't asked for again, the install revalidates it regardless
+	private static final long TTL_MILLIS = 10 * 60 * 1000;
+	private static final ModpackPrefetcher instance = new ModpackPrefetcher();
+
+	private final Map<String, Entry> prefetched = new ConcurrentHashMap<String, Entry>();
+	private final Map<String, Boolean> queued = new ConcurrentHashMap<String, Boolean>();
+
+	private ModpackPrefetcher() {
+
+	}
+
+	public static ModpackPrefetcher getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Queues the pack's recommended and latest builds, as well as the build it is set to, to be fetched.
+	 * Only Solder packs are fetched, the others already have their manifest without asking anyone.
+	 */
+	public void prefetch(InstalledPack pack, final User user) {
+		final PackInfo info = pack.getInfo();
+		if (!(info instanceof SolderPackInfo) || user == null) {
+			return;
+		}
+
+		Set<String> builds = new LinkedHashSet<String>();
+		builds.add(pack.getBuild());
+		builds.add(info.getRecommended());
+		builds.add(info.getLatest());
+
+		String host = "";
+		if (((SolderPackInfo) info).getSolder() != null) {
+			host = RequestScheduler.getHost(((SolderPackInfo) info).getSolder().getUrl());
+		}
+
+		for (final String build : builds) {
+			if (build == null || isPrefetched(info, build, user)) {
+				continue;
+			}
+
+			//The pack's info and images report in several times, only the first asks for each build
+			final String key = getKey(info, build, user);
+			if (queued.put(key, Boolean.TRUE) != null) {
+				continue;
+			}
+
+			RequestScheduler.getInstance().submit(host, 0, new Runnable() {
+				@Override
+				public void run() {
+					try {
+						fetch(info, build, user);
+					} catch (BuildInaccessibleException ex) {
+						//The install will run into this itself and report it, if the build is ever played
+						Utils.getLogger().log(Level.INFO, "Unable to prefetch build " + build + " of " + info.getName(), ex);
+					} finally {
+						queued.remove(key);
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Gets a build's manifest for an install.  It is always checked with the server, since a build can be
+	 * changed after it was prefetched, but a prefetched one is only revalidated rather than downloaded.
+	 */
+	public Modpack getModpack(PackInfo info, String build, User user) throws BuildInaccessibleException {
+		return fetch(info, build, user);
+	}
+
+	private Modpack fetch(PackInfo info, String build, User user) throws BuildInaccessibleException {
+		Modpack modpack = info.getModpack(build, user);
+		prefetched.put(getKey(info, build, user), new Entry(info));
+		return modpack;
+	}
+
+	private boolean isPrefetched(PackInfo info, String build, User user) {
+		Entry entry = prefetched.get(getKey(info, build, user));
+
+		//A manifest fetched for info the pack has since replaced may come from a Solder it no longer uses
+		return entry != null && entry.info == info && !entry.isExpired();
+	}
+
+	private String getKey(PackInfo info, String build, User user) {
+		return info.getName() + "\n" + build + "\n" + user.getUsername();
+	}
+
+	private static class Entry {
+		private final PackInfo info;
+		private final long fetched;
+
+		public Entry(PackInfo info) {
+			this.info = info;
+			this.fetched = System.currentTimeMillis();
+		}
+
+		public boolean isExpired() {
+			return System.currentTimeMillis() - fetched > TTL_MILLIS;
+		}
+	}
+}
@@ -0,0 +1,164 @@
+/*
+ * This file is part of Technic Launcher Core.
+ * Copyright (C) 2013 Syndicate, LLC
+ *
+ * Technic Launcher Core is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Technic Launcher Core is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * as well as a copy of the GNU Lesser General Public License,
+ * along with Technic Launcher Core.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.technicpack.launchercore.install;
+
+import java.awt.EventQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gathers pack changes coming in from background threads and applies them on the event thread in
+ * batches.  Changes that arrive within a short window of each other are applied together: new packs are
+ * added to the store, the store is reordered in one pass, and listeners hear about every changed pack in
+ * a single call.
+ */
+public class PackUpdateNotifier {
+	private static final int WINDOW_MILLIS = 100;
+	private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "Pack Update Thread");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	private final IPackStore packStore;
+	private final List<IPackListener> listeners;
+
+	private Set<InstalledPack> changed = new LinkedHashSet<InstalledPack>();
+	private Map<String, InstalledPack> added = new LinkedHashMap<String, InstalledPack>();
+	private Map<String, Integer> positions = new LinkedHashMap<String, Integer>();
+	private boolean scheduled = false;
+
+	public PackUpdateNotifier(IPackStore packStore, List<IPackListener> listeners) {
+		this.packStore = packStore;
+		this.listeners = listeners;
+	}
+
+	public synchronized void packChanged(InstalledPack pack) {
+		changed.add(pack);
+		schedule();
+	}
+
+	/**
+	 * Queues a pack to be added to the store with the next batch.
+	 */
+	public synchronized void packAdded(InstalledPack pack) {
+		added.put(pack.getName(), pack);
+		changed.add(pack);
+		schedule();
+	}
+
+	/**
+	 * Queues a pack to be moved to the given position in the store with the next batch.  Only the last
+	 * position asked for in a batch counts.
+	 */
+	public synchronized void packMoved(InstalledPack pack, int index) {
+		positions.put(pack.getName(), index);
+		changed.add(pack);
+		schedule();
+	}
+
+	/**
+	 * The first change after a batch went out opens the window; the rest join it.
+	 */
+	private void schedule() {
+		if (scheduled) {
+			return;
+		}
+
+		scheduled = true;
+		scheduler.schedule(new Runnable() {
+			@Override
+			public void run() {
+				EventQueue.invokeLater(new Runnable() {
+					@Override
+					public void run() {
+						flush();
+					}
+				});
+			}
+		}, WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	private void flush() {
+		Set<InstalledPack> batchChanged;
+		Map<String, InstalledPack> batchAdded;
+		Map<String, Integer> batchPositions;
+
+		synchronized (this) {
+			batchChanged = changed;
+			batchAdded = added;
+			batchPositions = positions;
+			changed = new LinkedHashSet<InstalledPack>();
+			added = new LinkedHashMap<String, InstalledPack>();
+			positions = new LinkedHashMap<String, Integer>();
+			scheduled = false;
+		}
+
+		for (InstalledPack pack : batchAdded.values()) {
+			packStore.add(pack);
+		}
+
+		reorder(batchPositions);
+
+		if (batchChanged.isEmpty()) {
+			return;
+		}
+
+		Collection<InstalledPack> packs = new ArrayList<InstalledPack>(batchChanged);
+		for (IPackListener listener : listeners) {
+			listener.updatePacks(packs);
+		}
+	}
+
+	/**
+	 * Moves packs in order of their new position, the same order the pack list was read in.
+	 */
+	private void reorder(Map<String, Integer> batchPositions) {
+		if (batchPositions.isEmpty()) {
+			return;
+		}
+
+		List<Map.Entry<String, Integer>> moves = new ArrayList<Map.Entry<String, Integer>>(batchPositions.entrySet());
+		Collections.sort(moves, new Comparator<Map.Entry<String, Integer>>() {
+			@Override
+			public int compare(Map.Entry<String, Integer> first, Map.Entry<String, Integer> second) {
+				return first.getValue().compareTo(second.getValue());
+			}
+		});
+
+		for (Map.Entry<String, Integer> move : moves) {
+			packStore.reorder(move.getValue(), move.getKey());
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package net.technicpack.launchercore.install.tasks;
 
+import net.technicpack.launchercore.install.ContentStore;
 import net.technicpack.launchercore.install.InstalledPack;
 import net.technicpack.launchercore.restful.Modpack;
 import net.technicpack.launchercore.restful.solder.Mod;
@@ -34,7 +35,7 @@ public class CleanupModpackCacheTask implements IInstallTask {
 		File[] files = this.pack.getCacheDir().listFiles();
 
 		if (files == null) {
-			return;
+			files = new File[0];
 		}
 
 		Set<String> keepFiles = new HashSet<String>(modpack.getMods().size() + 1);
@@ -50,5 +51,7 @@ public class CleanupModpackCacheTask implements IInstallTask {
 			}
 			FileUtils.deleteQuietly(file);
 		}
+
+		ContentStore.getInstance().evictUnreferenced();
 	}
 }
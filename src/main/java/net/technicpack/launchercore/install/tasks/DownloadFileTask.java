@@ -1,18 +1,22 @@
 package net.technicpack.launchercore.install.tasks;
 
 import net.technicpack.launchercore.exception.DownloadException;
+import net.technicpack.launchercore.minecraft.LibraryUrlCache;
 import net.technicpack.launchercore.mirror.MirrorStore;
+import net.technicpack.launchercore.mirror.download.DownloadPriority;
 import net.technicpack.launchercore.util.verifiers.IFileVerifier;
 
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 
-public class DownloadFileTask extends ListenerTask {
+public class DownloadFileTask extends ListenerTask implements IConcurrentTask {
 	private String url;
 	private File destination;
 	private String taskDescription;
     private IFileVerifier fileVerifier;
+	private DownloadPriority priority = DownloadPriority.CRITICAL;
+	private LibraryUrlCache libraryUrlCache;
 
 	public DownloadFileTask(String url, File destination, IFileVerifier verifier) {
 		this(url, destination, verifier, destination.getName());
@@ -25,6 +29,17 @@ public class DownloadFileTask extends ListenerTask {
         this.fileVerifier = verifier;
 	}
 
+	public void setPriority(DownloadPriority priority) {
+		this.priority = priority;
+	}
+
+	/**
+	 * Marks the url as one found by a library lookup, which the given cache forgets if the download fails.
+	 */
+	public void setLibraryUrlCache(LibraryUrlCache libraryUrlCache) {
+		this.libraryUrlCache = libraryUrlCache;
+	}
+
 	@Override
 	public String getTaskDescription() {
 		return taskDescription;
@@ -34,7 +49,14 @@ public class DownloadFileTask extends ListenerTask {
 	public void runTask(InstallTasksQueue queue) throws IOException {
 		super.runTask(queue);
 
-		queue.getMirrorStore().downloadFile(url, this.destination.getName(), this.destination.getAbsolutePath(), null, fileVerifier, this);
+		try {
+			queue.getMirrorStore().downloadFile(url, this.destination.getName(), this.destination.getAbsolutePath(), null, fileVerifier, this, priority);
+		} catch (IOException ex) {
+			//If the url came from a remembered library lookup, the next install should look it up again
+			if (libraryUrlCache != null)
+				libraryUrlCache.invalidateUrl(url);
+			throw ex;
+		}
 
 		if (!this.destination.exists()) {
 			throw new DownloadException("Failed to download "+this.destination.getName()+".");
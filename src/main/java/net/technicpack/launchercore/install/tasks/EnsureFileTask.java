@@ -1,18 +1,26 @@
 package net.technicpack.launchercore.install.tasks;
 
+import net.technicpack.launchercore.install.ContentStore;
+import net.technicpack.launchercore.install.ExtractionManifest;
 import net.technicpack.launchercore.minecraft.ExtractRules;
+import net.technicpack.launchercore.minecraft.LibraryUrlCache;
+import net.technicpack.launchercore.util.DigestIndex;
 import net.technicpack.launchercore.util.verifiers.IFileVerifier;
 
 import java.io.File;
 import java.io.IOException;
 
-public class EnsureFileTask implements IInstallTask {
+public class EnsureFileTask implements IConcurrentTask {
 	private File cacheLocation;
 	private File zipExtractLocation;
 	private String sourceUrl;
 	private ExtractRules rules;
 	private String friendlyFileName;
     private IFileVerifier fileVerifier;
+	private ContentStore contentStore;
+	private String contentHash;
+	private ExtractionManifest extractionManifest;
+	private LibraryUrlCache libraryUrlCache;
 
 	public EnsureFileTask(File fileLocation, IFileVerifier fileVerifier, File zipExtractLocation, String sourceUrl, String friendlyFileName) {
 		this(fileLocation, fileVerifier, zipExtractLocation, sourceUrl, friendlyFileName, null);
@@ -26,6 +34,16 @@ public class EnsureFileTask implements IInstallTask {
 		this(fileLocation, fileVerifier, zipExtractLocation, sourceUrl, fileLocation.getName(), rules);
 	}
 
+	/**
+	 * Ensures a file whose md5 is known, looking for it in the given content store before downloading it, and
+	 * adding it to the store once it has been downloaded.
+	 */
+	public EnsureFileTask(File fileLocation, IFileVerifier fileVerifier, File zipExtractLocation, String sourceUrl, ContentStore contentStore, String contentHash) {
+		this(fileLocation, fileVerifier, zipExtractLocation, sourceUrl, fileLocation.getName(), null);
+		this.contentStore = contentStore;
+		this.contentHash = contentHash;
+	}
+
 	public EnsureFileTask(File fileLocation, IFileVerifier fileVerifier, File zipExtractLocation, String sourceUrl, String friendlyFileName, ExtractRules rules) {
 		this.cacheLocation = fileLocation;
 		this.zipExtractLocation = zipExtractLocation;
@@ -35,6 +53,20 @@ public class EnsureFileTask implements IInstallTask {
 		this.friendlyFileName = friendlyFileName;
 	}
 
+	/**
+	 * Has the file's extraction checked against and recorded in the given manifest.
+	 */
+	public void setExtractionManifest(ExtractionManifest extractionManifest) {
+		this.extractionManifest = extractionManifest;
+	}
+
+	/**
+	 * Has the source url forgotten by the given cache if downloading it fails, for urls found by a library lookup.
+	 */
+	public void setLibraryUrlCache(LibraryUrlCache libraryUrlCache) {
+		this.libraryUrlCache = libraryUrlCache;
+	}
+
 	@Override
 	public String getTaskDescription() {
 		return "Verifying "+this.cacheLocation.getName();
@@ -47,10 +79,43 @@ public class EnsureFileTask implements IInstallTask {
 
 	@Override
 	public void runTask(InstallTasksQueue queue) throws IOException {
+		if (isCacheValid()) {
+			//An archive that is still extracted exactly as recorded doesn't need an unzip task at all
+			if (this.zipExtractLocation != null && !isExtracted())
+				queue.AddNextTask(new UnzipFileTask(this.cacheLocation, this.zipExtractLocation, this.rules, this.extractionManifest));
+
+			//Files cached before the store existed seed it, so other packs can use them
+			if (this.contentStore != null)
+				queue.AddNextTask(new StoreContentTask(this.contentStore, this.contentHash, this.cacheLocation));
+			return;
+		}
+
 		if (this.zipExtractLocation != null)
-			queue.AddNextTask(new UnzipFileTask(this.cacheLocation, this.zipExtractLocation, this.rules));
+			queue.AddNextTask(new UnzipFileTask(this.cacheLocation, this.zipExtractLocation, this.rules, this.extractionManifest));
+
+		if (this.contentStore != null && this.contentStore.copyTo(this.contentHash, this.cacheLocation)) {
+			if (isCacheValid())
+				return;
+
+			//The stored copy is damaged, get rid of it and download it again
+			this.contentStore.remove(this.contentHash);
+		}
+
+		if (this.contentStore != null)
+			queue.AddNextTask(new StoreContentTask(this.contentStore, this.contentHash, this.cacheLocation));
+		DownloadFileTask download = new DownloadFileTask(this.sourceUrl, this.cacheLocation, this.fileVerifier, this.friendlyFileName);
+		download.setLibraryUrlCache(this.libraryUrlCache);
+		queue.AddNextTask(download);
+	}
+
+	private boolean isExtracted() {
+		if (this.extractionManifest == null)
+			return false;
+
+		return this.extractionManifest.isExtracted(this.cacheLocation.getName(), DigestIndex.getInstance().getMD5(this.cacheLocation));
+	}
 
-		if (!this.cacheLocation.exists() || (fileVerifier != null && !fileVerifier.isFileValid(this.cacheLocation)))
-			queue.AddNextTask(new DownloadFileTask(this.sourceUrl, this.cacheLocation, this.fileVerifier, this.friendlyFileName));
+	private boolean isCacheValid() {
+		return this.cacheLocation.exists() && (fileVerifier == null || fileVerifier.isFileValid(this.cacheLocation));
 	}
 }
@@ -1,21 +1,23 @@
 package net.technicpack.launchercore.install.tasks;
 
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import net.technicpack.launchercore.exception.DownloadException;
 import net.technicpack.launchercore.install.InstalledPack;
+import net.technicpack.launchercore.minecraft.AssetIndexReader;
 import net.technicpack.launchercore.minecraft.MojangConstants;
-import net.technicpack.launchercore.mirror.MirrorStore;
+import net.technicpack.launchercore.mirror.download.DownloadPriority;
 import net.technicpack.launchercore.util.Utils;
 import net.technicpack.launchercore.util.verifiers.FileSizeVerifier;
-import net.technicpack.launchercore.util.verifiers.IFileVerifier;
 import net.technicpack.launchercore.util.verifiers.ValidJsonFileVerifier;
-import org.apache.commons.io.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
 
 public class GetAssetsIndexTask extends ListenerTask {
 	private InstalledPack pack;
@@ -43,52 +45,102 @@ public class GetAssetsIndexTask extends ListenerTask {
 
 		(new File(output.getParent())).mkdirs();
 
-        IFileVerifier fileVerifier = new ValidJsonFileVerifier();
-        String assetsUrl = MojangConstants.getAssetsIndex(assets);
+		//The index is validated by reading it, so a bad copy is only found out about partway through the diff
+		AssetsDiff diff = null;
+		if (output.exists()) {
+			try {
+				diff = readIndex(output);
+			} catch (IOException ex) {
+				Utils.getLogger().log(Level.INFO, "The assets index " + output.getName() + " was invalid, downloading it again.");
+			}
+		}
 
-		if (!output.exists() || !fileVerifier.isFileValid(output)) {
-			queue.getMirrorStore().downloadFile(assetsUrl, output.getName(), output.getAbsolutePath(), null, fileVerifier, this);
+		if (diff == null) {
+			String assetsUrl = MojangConstants.getAssetsIndex(assets);
+			queue.getMirrorStore().downloadFile(assetsUrl, output.getName(), output.getAbsolutePath(), null, new ValidJsonFileVerifier(), this);
+			diff = readIndex(output);
 		}
 
-		String json = FileUtils.readFileToString(output, Charset.forName("UTF-8"));
-		JsonObject obj = Utils.getMojangGson().fromJson(json, JsonObject.class);
+		queue.getCompleteVersion().setAreAssetsVirtual(diff.isVirtual);
 
-		if (obj == null) {
-			throw new DownloadException("The assets json file was invalid.");
+		for (IInstallTask download : diff.downloads) {
+			queue.AddTask(download);
 		}
 
-		boolean isVirtual = false;
+		//Copies into the virtual directory have to wait for their download, so they are queued after all of
+		//the downloads instead of in between them, which would otherwise break up the concurrent downloads.
+		if (diff.isVirtual) {
+			File virtualDirectory = new File(new File(Utils.getAssetsDirectory(), "virtual"), assets);
 
-		if (obj.get("virtual") != null)
-			isVirtual = obj.get("virtual").getAsBoolean();
+			for (String[] asset : diff.assets) {
+				File virtualOut = new File(virtualDirectory, asset[0]);
+
+				if (!virtualOut.exists()) {
+					(new File(virtualOut.getParent())).mkdirs();
+					queue.AddTask(new CopyFileTask(diff.getLocation(asset[1]), virtualOut));
+				}
+			}
+		}
+	}
 
-		queue.getCompleteVersion().setAreAssetsVirtual(isVirtual);
+	private AssetsDiff readIndex(File index) throws IOException {
+		AssetsDiff diff = new AssetsDiff();
+		diff.isVirtual = AssetIndexReader.read(index, diff);
+		return diff;
+	}
 
-		JsonObject allObjects = obj.get("objects").getAsJsonObject();
+	/**
+	 * Works out which objects of an index are missing from the object store while the index is being read.
+	 * Each prefix directory is listed once, so objects that are missing cost no stat at all.
+	 */
+	private static class AssetsDiff implements AssetIndexReader.AssetHandler {
+		private final File objectsDirectory = new File(Utils.getAssetsDirectory(), "objects");
+		private final Map<String, Set<String>> presentObjects = new HashMap<String, Set<String>>();
+		private final Set<String> queuedHashes = new HashSet<String>();
 
-		if (allObjects == null) {
-			throw new DownloadException("The assets json file was invalid.");
-		}
+		private boolean isVirtual = false;
 
-		for(Map.Entry<String, JsonElement> field : allObjects.entrySet()) {
-			String friendlyName = field.getKey();
-			JsonObject file = field.getValue().getAsJsonObject();
-			String hash = file.get("hash").getAsString();
-            long size = file.get("size").getAsLong();
+		private final List<IInstallTask> downloads = new LinkedList<IInstallTask>();
+		//Name and hash of each object, in case the index turns out to be virtual
+		private final List<String[]> assets = new LinkedList<String[]>();
 
-			File location = new File(Utils.getAssetsDirectory() + File.separator + "objects" + File.separator + hash.substring(0, 2) + File.separator, hash);
-			String url = MojangConstants.getResourceUrl(hash);
+		@Override
+		public void asset(String name, String hash, long size) {
+			assets.add(new String[] {name, hash});
 
-			(new File(location.getParent())).mkdirs();
+			if (queuedHashes.contains(hash)) {
+				return;
+			}
+
+			String prefix = hash.substring(0, 2);
+			Set<String> present = presentObjects.get(prefix);
+			if (present == null) {
+				present = listObjects(new File(objectsDirectory, prefix));
+				presentObjects.put(prefix, present);
+			}
+
+			File location = getLocation(hash);
+			if (!present.contains(hash) || location.length() != size) {
+				queuedHashes.add(hash);
+				DownloadFileTask download = new DownloadFileTask(MojangConstants.getResourceUrl(hash), location, new FileSizeVerifier(size), new File(name).getName());
+				download.setPriority(DownloadPriority.ASSET);
+				downloads.add(download);
+			}
+		}
 
-			File virtualOut =  new File(Utils.getAssetsDirectory() + File.separator + "virtual" + File.separator + assets + File.separator + friendlyName);
+		public File getLocation(String hash) {
+			return new File(new File(objectsDirectory, hash.substring(0, 2)), hash);
+		}
 
-			queue.AddTask(new EnsureFileTask(location, new FileSizeVerifier(size), null, url, virtualOut.getName()));
+		private Set<String> listObjects(File prefixDirectory) {
+			String[] names = prefixDirectory.list();
 
-			if (isVirtual && !virtualOut.exists()) {
-				(new File(virtualOut.getParent())).mkdirs();
-				queue.AddTask(new CopyFileTask(location,virtualOut));
+			if (names == null) {
+				prefixDirectory.mkdirs();
+				return new HashSet<String>();
 			}
+
+			return new HashSet<String>(Arrays.asList(names));
 		}
 	}
 }
@@ -1,22 +1,32 @@
 package net.technicpack.launchercore.install.tasks;
 
 import net.technicpack.launchercore.exception.DownloadException;
+import net.technicpack.launchercore.install.ExtractionManifest;
 import net.technicpack.launchercore.install.InstalledPack;
 import net.technicpack.launchercore.minecraft.CompleteVersion;
 import net.technicpack.launchercore.minecraft.Library;
+import net.technicpack.launchercore.minecraft.LibraryUrlCache;
 import net.technicpack.launchercore.mirror.MirrorStore;
 import net.technicpack.launchercore.util.OperatingSystem;
 import net.technicpack.launchercore.util.Utils;
 import net.technicpack.launchercore.util.verifiers.IFileVerifier;
 import net.technicpack.launchercore.util.verifiers.MD5FileVerifier;
 import net.technicpack.launchercore.util.verifiers.ValidZipFileVerifier;
-import org.apache.commons.io.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 public class HandleVersionFileTask implements IInstallTask {
+	private static final int RESOLVE_THREADS = 8;
+
 	private InstalledPack pack;
     private String libraryName;
     private boolean updating;
@@ -42,14 +52,15 @@ public class HandleVersionFileTask implements IInstallTask {
 	@Override
 	public void runTask(InstallTasksQueue queue) throws IOException {
 		File versionFile = new File(this.pack.getBinDir(), "version.json");
-		String json = FileUtils.readFileToString(versionFile, Charset.forName("UTF-8"));
-		CompleteVersion version = Utils.getMojangGson().fromJson(json, CompleteVersion.class);
+		CompleteVersion version = CompleteVersion.load(versionFile);
 
 		if (version == null) {
 			throw new DownloadException("The version.json file was invalid.");
 		}
 		
 		if (updating) {
+			List<LibraryJob> jobs = new ArrayList<LibraryJob>();
+
 			for (Library library : version.getLibrariesForOS()) {
 				// If minecraftforge is described in the libraries, skip it
 				// HACK - Please let us get rid of this when we move to actually hosting forge,
@@ -59,10 +70,6 @@ public class HandleVersionFileTask implements IInstallTask {
 					continue;
 				}
 	
-	            String[] nameBits = library.getName().split(":",3);
-	            libraryName = nameBits[1]+"-"+nameBits[2]+".jar";
-	            queue.RefreshProgress();
-	
 				String natives = null;
 				File extractDirectory = null;
 				if (library.getNatives() != null) {
@@ -74,26 +81,101 @@ public class HandleVersionFileTask implements IInstallTask {
 				}
 	
 				String path = library.getArtifactPath(natives).replace("${arch}", System.getProperty("sun.arch.data.model"));
-				String url = library.getDownloadUrl(path, queue.getMirrorStore()).replace("${arch}", System.getProperty("sun.arch.data.model"));
-				String md5 = queue.getMirrorStore().getETag(url);
-	
-				File cache = new File(Utils.getCacheDirectory(), path);
+				jobs.add(new LibraryJob(library, path, extractDirectory));
+			}
+
+			resolveLibraries(jobs, queue);
+
+			for (LibraryJob job : jobs) {
+				File cache = new File(Utils.getCacheDirectory(), job.path);
 				if (cache.getParentFile() != null) {
 					cache.getParentFile().mkdirs();
 				}
 				
 	            IFileVerifier verifier = null;
-	            if (md5 != null && !md5.isEmpty()) {
-	                verifier = new MD5FileVerifier(md5);
+	            if (job.md5 != null && !job.md5.isEmpty()) {
+	                verifier = new MD5FileVerifier(job.md5);
 	            } else {
 	                verifier = new ValidZipFileVerifier();
 	            }
 	
-				queue.AddTask(new EnsureFileTask(cache, verifier, extractDirectory, url, library.getExtract()));
+				EnsureFileTask task = new EnsureFileTask(cache, verifier, job.extractDirectory, job.url, job.library.getExtract());
+				if (job.extractDirectory != null) {
+					task.setExtractionManifest(ExtractionManifest.forDestination(job.extractDirectory));
+				}
+				task.setLibraryUrlCache(LibraryUrlCache.getInstance());
+				queue.AddTask(task);
 			}
 		}
 
 		queue.AddTask(new GetAssetsIndexTask(this.pack));
 		queue.setCompleteVersion(version);
 	}
+
+	/**
+	 * Works out the download url and md5 of every library at once.  Each one takes several round trips, so
+	 * doing them one library at a time kept every download waiting on all of them.
+	 */
+	private void resolveLibraries(List<LibraryJob> jobs, InstallTasksQueue queue) throws IOException {
+		if (jobs.isEmpty()) {
+			return;
+		}
+
+		final MirrorStore mirrorStore = queue.getMirrorStore();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(RESOLVE_THREADS, jobs.size()), new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "Library Resolve Thread");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		try {
+			List<Future<Void>> futures = new ArrayList<Future<Void>>(jobs.size());
+			for (final LibraryJob job : jobs) {
+				futures.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws IOException {
+						job.url = job.library.getDownloadUrl(job.path, mirrorStore).replace("${arch}", System.getProperty("sun.arch.data.model"));
+						job.md5 = mirrorStore.getETag(job.url);
+						return null;
+					}
+				}));
+			}
+
+			for (int i = 0; i < futures.size(); i++) {
+				libraryName = (i + 1) + " of " + futures.size() + " libraries";
+				queue.RefreshProgress();
+
+				try {
+					futures.get(i).get();
+				} catch (ExecutionException ex) {
+					if (ex.getCause() instanceof IOException) {
+						throw (IOException) ex.getCause();
+					}
+					throw new DownloadException("Failed to look up library " + jobs.get(i).path, ex.getCause());
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					throw new DownloadException("Interrupted while looking up libraries.");
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static class LibraryJob {
+		private final Library library;
+		private final String path;
+		private final File extractDirectory;
+		private volatile String url;
+		private volatile String md5;
+
+		public LibraryJob(Library library, String path, File extractDirectory) {
+			this.library = library;
+			this.path = path;
+			this.extractDirectory = extractDirectory;
+		}
+	}
 }
@@ -0,0 +1,10 @@
+package net.technicpack.launchercore.install.tasks;
+
+/**
+ * Marks an install task that does not depend on the order it runs in relative to the other
+ * concurrent tasks around it, so InstallTasksQueue may run it alongside them.  Every task that
+ * does not implement this interface acts as a barrier: it only starts once all concurrent work
+ * queued ahead of it has finished.
+ */
+public interface IConcurrentTask extends IInstallTask {
+}
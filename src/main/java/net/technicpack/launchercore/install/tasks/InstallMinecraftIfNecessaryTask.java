@@ -37,7 +37,7 @@ public class InstallMinecraftIfNecessaryTask extends ListenerTask {
 
 		String version = this.minecraftVersion;
         String url = PlatformConstants.DOWNLOAD + "version/" + version + "/" + version + ".jar";
-        String md5 = Download.eTag(url);
+        String md5 = queue.getMirrorStore().getETag(url);
 		File cache = new File(Utils.getCacheDirectory(), "minecraft_" + this.minecraftVersion + ".jar");
 
         IFileVerifier verifier = null;
@@ -1,6 +1,8 @@
 package net.technicpack.launchercore.install.tasks;
 
 import net.technicpack.launchercore.exception.CacheDeleteException;
+import net.technicpack.launchercore.install.ContentStore;
+import net.technicpack.launchercore.install.ExtractionManifest;
 import net.technicpack.launchercore.install.InstalledPack;
 import net.technicpack.launchercore.restful.Modpack;
 import net.technicpack.launchercore.restful.solder.Mod;
@@ -10,6 +12,8 @@ import net.technicpack.launchercore.util.verifiers.ValidZipFileVerifier;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
 
 public class InstallModpackTask implements IInstallTask {
 	private InstalledPack pack;
@@ -22,7 +26,7 @@ public class InstallModpackTask implements IInstallTask {
 
 	@Override
 	public String getTaskDescription() {
-		return "Wiping Folders";
+		return "Updating Mods";
 	}
 
 	@Override
@@ -32,46 +36,82 @@ public class InstallModpackTask implements IInstallTask {
 
 	@Override
 	public void runTask(InstallTasksQueue queue) throws IOException {
-		File modsDir = this.pack.getModsDir();
+		File packOutput = this.pack.getInstalledDirectory();
+		ExtractionManifest manifest = ExtractionManifest.forDestination(packOutput);
 
-		if (modsDir != null && modsDir.exists()) {
-			deleteMods(modsDir);
+		Set<String> archiveNames = new HashSet<String>(modpack.getMods().size());
+		for (Mod mod : modpack.getMods()) {
+			archiveNames.add(getArchiveName(mod));
 		}
 
-		File coremodsDir = this.pack.getCoremodsDir();
-
-		if (coremodsDir != null && coremodsDir.exists()) {
-			deleteMods(coremodsDir);
+		if (manifest.isNew()) {
+			//Nothing tells us which files came from which mod, so everything has to go
+			wipeMods();
+		} else {
+			//Only the files of mods that left the pack are removed, changed mods clean up after themselves as
+			//they are extracted and unchanged ones aren't touched at all
+			for (String archive : manifest.getArchives()) {
+				if (!archiveNames.contains(archive)) {
+					manifest.release(archive);
+				}
+			}
 		}
 
-		//HACK - jamioflan is a big jerk who needs to put his mods in the dang mod directory!
-		File flansDir = new File(this.pack.getInstalledDirectory(), "Flan");
-
-		if (flansDir.exists()) {
-			deleteMods(flansDir);
-		}
+		ContentStore contentStore = ContentStore.getInstance();
+		Set<String> contentHashes = new HashSet<String>();
 
-		File packOutput = this.pack.getInstalledDirectory();
 		for (Mod mod : modpack.getMods()) {
 			String url = mod.getUrl();
 			String md5 = mod.getMd5();
-			String name = mod.getName() + "-" + mod.getVersion() + ".zip";
 
-			File cache = new File(this.pack.getCacheDir(), name);
+			File cache = new File(this.pack.getCacheDir(), getArchiveName(mod));
 
             IFileVerifier verifier = null;
+            EnsureFileTask task = null;
 
-            if (md5 != null && !md5.isEmpty())
+            if (md5 != null && !md5.isEmpty()) {
                 verifier = new MD5FileVerifier(md5);
-            else
+                contentHashes.add(md5);
+                task = new EnsureFileTask(cache, verifier, packOutput, url, contentStore, md5);
+            } else {
                 verifier = new ValidZipFileVerifier();
+                task = new EnsureFileTask(cache, verifier, packOutput, url);
+            }
 
-			queue.AddNextTask(new EnsureFileTask(cache, verifier, packOutput, url));
+            task.setExtractionManifest(manifest);
+            queue.AddNextTask(task);
 		}
 
+		contentStore.setReferences(this.pack.getName(), contentHashes);
+
 		queue.AddTask(new CleanupModpackCacheTask(this.pack, modpack));
 	}
 
+	private String getArchiveName(Mod mod) {
+		return mod.getName() + "-" + mod.getVersion() + ".zip";
+	}
+
+	private void wipeMods() throws IOException {
+		File modsDir = this.pack.getModsDir();
+
+		if (modsDir != null && modsDir.exists()) {
+			deleteMods(modsDir);
+		}
+
+		File coremodsDir = this.pack.getCoremodsDir();
+
+		if (coremodsDir != null && coremodsDir.exists()) {
+			deleteMods(coremodsDir);
+		}
+
+		//HACK - jamioflan is a big jerk who needs to put his mods in the dang mod directory!
+		File flansDir = new File(this.pack.getInstalledDirectory(), "Flan");
+
+		if (flansDir.exists()) {
+			deleteMods(flansDir);
+		}
+	}
+
 	private void deleteMods(File modsDir) throws CacheDeleteException {
 		for (File mod : modsDir.listFiles()) {
 			if (mod.isDirectory()) {
@@ -5,7 +5,19 @@ import net.technicpack.launchercore.mirror.MirrorStore;
 import net.technicpack.launchercore.util.DownloadListener;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class InstallTasksQueue {
 	private DownloadListener listener;
@@ -13,31 +25,179 @@ public class InstallTasksQueue {
 	private IInstallTask currentTask;
 	private CompleteVersion completeVersion;
     private MirrorStore mirrorStore;
+	private int maxConcurrentTasks;
+	private ExecutorService executor;
+
+	//State of the concurrent window currently being run, if any
+	private final Map<Thread, TaskSlot> activeSlots = new HashMap<Thread, TaskSlot>();
+	private int windowSize;
+	private int windowCompleted;
+	private volatile Throwable windowFailure;
 
 	public InstallTasksQueue(DownloadListener listener, MirrorStore mirrorStore) {
+		this(listener, mirrorStore, 1);
+	}
+
+	/**
+	 * @param maxConcurrentTasks How many IConcurrentTasks may run at once.  A value of 1 runs every task
+	 *                           serially on the calling thread.
+	 */
+	public InstallTasksQueue(DownloadListener listener, MirrorStore mirrorStore, int maxConcurrentTasks) {
 		this.listener = listener;
         this.mirrorStore = mirrorStore;
 		this.tasks = new LinkedList<IInstallTask>();
 		this.currentTask = null;
+		this.maxConcurrentTasks = Math.max(1, maxConcurrentTasks);
 	}
 
 	public void RefreshProgress() {
-		listener.stateChanged(currentTask.getTaskDescription(), currentTask.getTaskProgress());
+		IInstallTask task;
+		float progress;
+
+		synchronized (this) {
+			if (windowSize == 0) {
+				task = currentTask;
+				progress = task.getTaskProgress();
+			} else {
+				TaskSlot slot = activeSlots.get(Thread.currentThread());
+				task = (slot != null) ? slot.current : currentTask;
+
+				float total = windowCompleted * 100.0f;
+				for (TaskSlot active : activeSlots.values()) {
+					total += active.current.getTaskProgress();
+				}
+				progress = total / windowSize;
+			}
+		}
+
+		listener.stateChanged(task.getTaskDescription(), progress);
 	}
 
 	public void RunAllTasks() throws IOException {
-		while (!tasks.isEmpty()) {
-			currentTask = tasks.removeFirst();
-			RefreshProgress();
-			currentTask.runTask(this);
+		try {
+			IInstallTask task;
+			while ((task = pollTask(false)) != null) {
+				if (maxConcurrentTasks > 1 && task instanceof IConcurrentTask) {
+					runConcurrentWindow(task);
+				} else {
+					currentTask = task;
+					RefreshProgress();
+					currentTask.runTask(this);
+				}
+			}
+		} finally {
+			if (executor != null) {
+				executor.shutdownNow();
+				executor = null;
+			}
+		}
+	}
+
+	/**
+	 * Runs the given task, along with every IConcurrentTask directly behind it, across the worker pool.
+	 * Tasks that a worker queues with AddNextTask keep their relative order: concurrent ones run on the
+	 * same worker right away, and barriers are held until the whole window has drained and then placed
+	 * at the head of the queue in the order their parent tasks were started.
+	 */
+	private void runConcurrentWindow(IInstallTask first) throws IOException {
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(maxConcurrentTasks, new WorkerThreadFactory());
+		}
+
+		List<TaskSlot> slots = new ArrayList<TaskSlot>();
+		List<Future<Void>> futures = new ArrayList<Future<Void>>();
+
+		synchronized (this) {
+			windowSize = 0;
+			windowCompleted = 0;
+			windowFailure = null;
+		}
+
+		IInstallTask task = first;
+		while (task != null) {
+			TaskSlot slot = new TaskSlot(task);
+			slots.add(slot);
+
+			synchronized (this) {
+				windowSize++;
+				currentTask = task;
+			}
+
+			futures.add(executor.submit(new SlotRunner(slot)));
+			task = pollTask(true);
+		}
+
+		try {
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+		} catch (ExecutionException ex) {
+			//The failure was recorded by the worker, wait for the rest of the window to wind down
+			waitQuietly(futures);
+		} catch (InterruptedException ex) {
+			windowFailure = new InterruptedIOException("Interrupted while waiting for install tasks to finish.");
+			Thread.currentThread().interrupt();
+		}
+
+		LinkedList<IInstallTask> deferred = new LinkedList<IInstallTask>();
+		for (TaskSlot slot : slots) {
+			deferred.addAll(slot.deferred);
+		}
+
+		synchronized (this) {
+			windowSize = 0;
+			tasks.addAll(0, deferred);
+		}
+
+		Throwable failure = windowFailure;
+		if (failure instanceof IOException) {
+			throw (IOException) failure;
+		} else if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		} else if (failure instanceof Error) {
+			throw (Error) failure;
+		} else if (failure != null) {
+			throw new IOException(failure.getMessage());
+		}
+	}
+
+	private void waitQuietly(List<Future<Void>> futures) {
+		for (Future<Void> future : futures) {
+			try {
+				future.get();
+			} catch (ExecutionException ignore) {
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	private synchronized IInstallTask pollTask(boolean concurrentOnly) {
+		if (tasks.isEmpty()) {
+			return null;
 		}
+
+		if (concurrentOnly && !(tasks.getFirst() instanceof IConcurrentTask)) {
+			return null;
+		}
+
+		return tasks.removeFirst();
 	}
 
 	public void AddNextTask(IInstallTask task) {
-		tasks.addFirst(task);
+		synchronized (this) {
+			TaskSlot slot = activeSlots.get(Thread.currentThread());
+			if (slot != null) {
+				slot.addNext(task);
+				return;
+			}
+
+			tasks.addFirst(task);
+		}
 	}
 
-	public void AddTask(IInstallTask task) {
+	public synchronized void AddTask(IInstallTask task) {
 		tasks.addLast(task);
 	}
 
@@ -49,4 +209,82 @@ public class InstallTasksQueue {
 		return this.completeVersion;
 	}
     public MirrorStore getMirrorStore() { return this.mirrorStore; }
+
+	private static class TaskSlot {
+		private IInstallTask current;
+		private final LinkedList<IInstallTask> local = new LinkedList<IInstallTask>();
+		private final LinkedList<IInstallTask> deferred = new LinkedList<IInstallTask>();
+
+		public TaskSlot(IInstallTask task) {
+			this.current = task;
+		}
+
+		public void addNext(IInstallTask task) {
+			if (task instanceof IConcurrentTask) {
+				local.addFirst(task);
+			} else {
+				//Anything already queued locally was meant to run after this barrier
+				deferred.addAll(0, local);
+				local.clear();
+				deferred.addFirst(task);
+			}
+		}
+	}
+
+	private class SlotRunner implements Callable<Void> {
+		private final TaskSlot slot;
+
+		public SlotRunner(TaskSlot slot) {
+			this.slot = slot;
+		}
+
+		@Override
+		public Void call() throws Exception {
+			synchronized (InstallTasksQueue.this) {
+				activeSlots.put(Thread.currentThread(), slot);
+			}
+
+			try {
+				IInstallTask task = slot.current;
+				while (task != null && windowFailure == null) {
+					synchronized (InstallTasksQueue.this) {
+						slot.current = task;
+					}
+					RefreshProgress();
+					task.runTask(InstallTasksQueue.this);
+
+					synchronized (InstallTasksQueue.this) {
+						task = slot.local.poll();
+					}
+				}
+				return null;
+			} catch (Throwable t) {
+				synchronized (InstallTasksQueue.this) {
+					if (windowFailure == null) {
+						windowFailure = t;
+					}
+				}
+				if (t instanceof Exception) {
+					throw (Exception) t;
+				}
+				throw (Error) t;
+			} finally {
+				synchronized (InstallTasksQueue.this) {
+					activeSlots.remove(Thread.currentThread());
+					windowCompleted++;
+				}
+			}
+		}
+	}
+
+	private static class WorkerThreadFactory implements ThreadFactory {
+		private final AtomicInteger count = new AtomicInteger(0);
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "Install Worker " + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
 }
@@ -0,0 +1,40 @@
+package net.technicpack.launchercore.install.tasks;
+
+import net.technicpack.launchercore.install.ContentStore;
+import net.technicpack.launchercore.util.Utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.logging.Level;
+
+public class StoreContentTask implements IConcurrentTask {
+	private ContentStore contentStore;
+	private String md5;
+	private File file;
+
+	public StoreContentTask(ContentStore contentStore, String md5, File file) {
+		this.contentStore = contentStore;
+		this.md5 = md5;
+		this.file = file;
+	}
+
+	@Override
+	public String getTaskDescription() {
+		return "Caching "+this.file.getName();
+	}
+
+	@Override
+	public float getTaskProgress() {
+		return 0;
+	}
+
+	@Override
+	public void runTask(InstallTasksQueue queue) throws IOException {
+		try {
+			this.contentStore.add(this.md5, this.file);
+		} catch (IOException ex) {
+			//The pack already has its copy, failing to share it with other packs isn't worth failing the install over
+			Utils.getLogger().log(Level.WARNING, "Unable to add "+this.file.getAbsolutePath()+" to the content store", ex);
+		}
+	}
+}
@@ -1,25 +1,39 @@
 package net.technicpack.launchercore.install.tasks;
 
+import net.technicpack.launchercore.install.ExtractionManifest;
 import net.technicpack.launchercore.minecraft.ExtractRules;
+import net.technicpack.launchercore.util.DigestIndex;
 import net.technicpack.launchercore.util.ZipUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
+import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
 
 public class UnzipFileTask extends ListenerTask {
 	private File zipFile;
 	private File destination;
 	private ExtractRules rules;
+	private ExtractionManifest manifest;
 
 	public UnzipFileTask(File zipFile, File destination) {
 		this(zipFile, destination, null);
 	}
 
 	public UnzipFileTask(File zipFile, File destination, ExtractRules rules) {
+		this(zipFile, destination, rules, null);
+	}
+
+	/**
+	 * @param manifest If not null, the archive is only extracted if the manifest doesn't show it as already
+	 *                 extracted, and what it extracts is recorded there.
+	 */
+	public UnzipFileTask(File zipFile, File destination, ExtractRules rules, ExtractionManifest manifest) {
 		this.zipFile = zipFile;
 		this.destination = destination;
 		this.rules = rules;
+		this.manifest = manifest;
 	}
 
 	@Override
@@ -39,6 +53,20 @@ public class UnzipFileTask extends ListenerTask {
 			destination.mkdirs();
 		}
 
-		ZipUtils.unzipFile(zipFile, destination, this);
+		if (manifest == null) {
+			ZipUtils.unzipFile(zipFile, destination, rules, this);
+			return;
+		}
+
+		String md5 = DigestIndex.getInstance().getMD5(zipFile);
+		if (manifest.isExtracted(zipFile.getName(), md5)) {
+			return;
+		}
+
+		//Whatever an older copy of this archive left behind has to go, or files it no longer has would linger
+		manifest.release(zipFile.getName());
+
+		List<ZipEntry> extracted = ZipUtils.unzipFile(zipFile, destination, rules, this);
+		manifest.record(zipFile.getName(), md5, extracted);
 	}
 }
@@ -2,6 +2,7 @@ package net.technicpack.launchercore.install.user.skins;
 
 import net.technicpack.launchercore.install.user.User;
 import net.technicpack.launchercore.mirror.MirrorStore;
+import net.technicpack.launchercore.mirror.download.DownloadPriority;
 import net.technicpack.launchercore.util.Utils;
 
 import java.io.IOException;
@@ -19,7 +20,7 @@ public class MinotarSkinStore implements ISkinStore {
 	@Override
 	public void downloadUserSkin(User user, String location) {
 		try {
-			mirrorStore.downloadFile(mBaseUrl+"skin/"+user.getDisplayName(), user.getDisplayName(), location);
+			mirrorStore.downloadFile(mBaseUrl+"skin/"+user.getDisplayName(), user.getDisplayName(), location, DownloadPriority.COSMETIC);
 		} catch (IOException e) {
 			Utils.getLogger().log(Level.INFO, "Error downloading user face image: " + user.getDisplayName(), e);
 		}
@@ -28,7 +29,7 @@ public class MinotarSkinStore implements ISkinStore {
 	@Override
 	public void downloadUserFace(User user, String location) {
 		try {
-			mirrorStore.downloadFile(mBaseUrl+"helm/"+user.getDisplayName()+"/100", user.getDisplayName(), location);
+			mirrorStore.downloadFile(mBaseUrl+"helm/"+user.getDisplayName()+"/100", user.getDisplayName(), location, DownloadPriority.COSMETIC);
 		} catch (IOException e) {
 			Utils.getLogger().log(Level.INFO, "Error downloading user face image: " + user.getDisplayName(), e);
 		}
@@ -63,7 +63,7 @@ public class MinecraftLauncher {
 			first = false;
 		}
 		System.out.println("Running " + full.toString());
-		Utils.pingHttpURL(PlatformConstants.getRunCountUrl(pack.getName()), mirrorStore);
+		Utils.sendHit(PlatformConstants.getRunCountUrl(pack.getName()), mirrorStore);
 		if (!Utils.sendTracking("runModpack", pack.getName(), pack.getBuild())) {
 			System.out.println("Failed to record event");
 		}
@@ -0,0 +1,115 @@
+/*
+ * This file is part of Technic Launcher Core.
+ * Copyright (C) 2013 Syndicate, LLC
+ *
+ * Technic Launcher Core is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Technic Launcher Core is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * as well as a copy of the GNU Lesser General Public License,
+ * along with Technic Launcher Core.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.technicpack.launchercore.minecraft;
+
+import com.google.gson.stream.JsonReader;
+import net.technicpack.launchercore.exception.DownloadException;
+import org.apache.commons.io.IOUtils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+
+/**
+ * Reads an assets index one entry at a time, handing each object to a handler as soon as it has been
+ * read, rather than building the whole index in memory first.  An index that turns out to be malformed
+ * partway through fails with a DownloadException, so the handler shouldn't act on what it was given
+ * until the read has completed.
+ */
+public class AssetIndexReader {
+	public interface AssetHandler {
+		void asset(String name, String hash, long size);
+	}
+
+	/**
+	 * @return Whether the index is virtual
+	 */
+	public static boolean read(File index, AssetHandler handler) throws IOException {
+		JsonReader reader = new JsonReader(new BufferedReader(new InputStreamReader(new FileInputStream(index), Charset.forName("UTF-8"))));
+		reader.setLenient(true);
+
+		try {
+			boolean isVirtual = false;
+			boolean hasObjects = false;
+
+			reader.beginObject();
+			while (reader.hasNext()) {
+				String key = reader.nextName();
+
+				if ("virtual".equals(key)) {
+					isVirtual = reader.nextBoolean();
+				} else if ("objects".equals(key)) {
+					readObjects(reader, handler);
+					hasObjects = true;
+				} else {
+					reader.skipValue();
+				}
+			}
+			reader.endObject();
+
+			if (!hasObjects) {
+				throw new DownloadException("The assets json file " + index.getName() + " has no objects.");
+			}
+
+			return isVirtual;
+		} catch (IllegalStateException e) {
+			throw new DownloadException("The assets json file " + index.getName() + " was invalid.", e);
+		} catch (NumberFormatException e) {
+			throw new DownloadException("The assets json file " + index.getName() + " was invalid.", e);
+		} catch (IOException e) {
+			throw new DownloadException("The assets json file " + index.getName() + " was invalid.", e);
+		} finally {
+			IOUtils.closeQuietly(reader);
+		}
+	}
+
+	private static void readObjects(JsonReader reader, AssetHandler handler) throws IOException {
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			String hash = null;
+			long size = -1;
+
+			reader.beginObject();
+			while (reader.hasNext()) {
+				String key = reader.nextName();
+
+				if ("hash".equals(key)) {
+					hash = reader.nextString();
+				} else if ("size".equals(key)) {
+					size = reader.nextLong();
+				} else {
+					reader.skipValue();
+				}
+			}
+			reader.endObject();
+
+			if (hash == null || hash.length() < 2 || size < 0) {
+				throw new DownloadException("The asset " + name + " has no hash or size.");
+			}
+
+			handler.asset(name, hash, size);
+		}
+		reader.endObject();
+	}
+}
@@ -19,6 +19,16 @@
 
 package net.technicpack.launchercore.minecraft;
 
+import net.technicpack.launchercore.util.Utils;
+import org.apache.commons.io.IOUtils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -122,6 +132,21 @@ public class CompleteVersion implements Version {
 		this.areAssetsVirtual = areAssetsVirtual;
 	}
 
+	/**
+	 * Reads a version.json straight from disk, without loading the whole file into a string first.
+	 *
+	 * @return The version, or null if the file is empty
+	 */
+	public static CompleteVersion load(File versionFile) throws IOException {
+		Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(versionFile), Charset.forName("UTF-8")));
+
+		try {
+			return Utils.getMojangGson().fromJson(reader, CompleteVersion.class);
+		} finally {
+			IOUtils.closeQuietly(reader);
+		}
+	}
+
 	@Override
 	public String toString() {
 		return "CompleteVersion{" +
@@ -21,10 +21,14 @@ package net.technicpack.launchercore.minecraft;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class ExtractRules {
 	private List<String> exclude = new ArrayList<String>();
+	private transient PrefixNode compiledExcludes;
+	private transient int compiledSize;
 
 	public ExtractRules() {
 
@@ -41,14 +45,66 @@ public class ExtractRules {
 	}
 
 	public boolean shouldExtract(String path) {
-		if (this.exclude != null) {
-			for (String rule : this.exclude) {
-				if (path.startsWith(rule)) {
-					return false;
-				}
+		PrefixNode node = getCompiledExcludes();
+
+		if (node.excluded) {
+			return false;
+		}
+
+		for (int i = 0; i < path.length() && node.children != null; i++) {
+			node = node.children.get(path.charAt(i));
+
+			if (node == null) {
+				return true;
+			}
+			if (node.excluded) {
+				return false;
 			}
 		}
 
 		return true;
 	}
+
+	/**
+	 * Excludes are matched against every entry of an archive, so they are built into a trie the first time
+	 * they are needed, and each entry is only walked once no matter how many rules there are.
+	 */
+	private synchronized PrefixNode getCompiledExcludes() {
+		int size = (this.exclude == null) ? 0 : this.exclude.size();
+
+		if (compiledExcludes == null || compiledSize != size) {
+			PrefixNode root = new PrefixNode();
+
+			if (this.exclude != null) {
+				for (String rule : this.exclude) {
+					PrefixNode node = root;
+
+					for (int i = 0; i < rule.length() && !node.excluded; i++) {
+						if (node.children == null) {
+							node.children = new HashMap<Character, PrefixNode>();
+						}
+
+						PrefixNode child = node.children.get(rule.charAt(i));
+						if (child == null) {
+							child = new PrefixNode();
+							node.children.put(rule.charAt(i), child);
+						}
+						node = child;
+					}
+
+					node.excluded = true;
+				}
+			}
+
+			compiledExcludes = root;
+			compiledSize = size;
+		}
+
+		return compiledExcludes;
+	}
+
+	private static class PrefixNode {
+		private Map<Character, PrefixNode> children;
+		private boolean excluded;
+	}
 }
@@ -107,17 +107,41 @@ public class Library {
 
 	public String getDownloadUrl(String path, MirrorStore mirrorStore) {
 		if (this.url != null) {
-			String checkUrl = url + path;
-			if (Utils.pingHttpURL(checkUrl, mirrorStore)) {
-				return checkUrl;
-			}
-			for (String string : fallback) {
-				checkUrl = string + path;
-				if (Utils.pingHttpURL(checkUrl, mirrorStore)) {
-					return checkUrl;
+			LibraryUrlCache cache = LibraryUrlCache.getInstance();
+			String baseUrl = cache.getBaseUrl(this, path, mirrorStore);
+
+			if (baseUrl == null) {
+				baseUrl = findBaseUrl(path, mirrorStore);
+				if (baseUrl != null) {
+					cache.put(path, baseUrl);
 				}
 			}
+
+			if (baseUrl != null) {
+				return baseUrl + path;
+			}
 		}
 		return " https://libraries.minecraft.net/" + path;
 	}
+
+	/**
+	 * Pings this library's own url and then each fallback mirror for the given artifact.
+	 *
+	 * @return The base url of the first one that has it, or null if none do
+	 */
+	public String findBaseUrl(String path, MirrorStore mirrorStore) {
+		if (this.url == null) {
+			return null;
+		}
+
+		if (Utils.pingHttpURL(url + path, mirrorStore)) {
+			return url;
+		}
+		for (String string : fallback) {
+			if (Utils.pingHttpURL(string + path, mirrorStore)) {
+				return string;
+			}
+		}
+		return null;
+	}
 }
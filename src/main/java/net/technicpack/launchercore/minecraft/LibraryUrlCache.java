@@ -0,0 +1,193 @@
+/*
+ * This file is part of Technic Launcher Core.
+ * Copyright (C) 2013 Syndicate, LLC
+ *
+ * Technic Launcher Core is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Technic Launcher Core is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * as well as a copy of the GNU Lesser General Public License,
+ * along with Technic Launcher Core.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.technicpack.launchercore.minecraft;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+import net.technicpack.launchercore.mirror.MirrorStore;
+import net.technicpack.launchercore.util.Utils;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+
+/**
+ * Remembers which mirror each library artifact was found on, so installs don't have to ping every mirror
+ * again.  Answers older than the TTL are still used, but are checked again in the background so the next
+ * install gets a fresh one.  An answer whose download fails is forgotten right away.
+ */
+public class LibraryUrlCache {
+	private static final long TTL_MILLIS = 7L * 24 * 60 * 60 * 1000;
+	private static LibraryUrlCache instance;
+
+	private final File cacheFile;
+	private final Map<String, Entry> entries;
+	private volatile boolean dirty = false;
+	private final Set<String> refreshing = Collections.synchronizedSet(new HashSet<String>());
+	private final ExecutorService refresher = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "Library Url Refresh Thread");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	private LibraryUrlCache(File cacheFile, Map<String, Entry> entries) {
+		this.cacheFile = cacheFile;
+		this.entries = entries;
+	}
+
+	public static synchronized LibraryUrlCache getInstance() {
+		if (instance == null) {
+			instance = load(new File(Utils.getCacheDirectory(), "library-urls.json"));
+
+			//Answers found by background refreshes after the last install are written out on the way out
+			final LibraryUrlCache cache = instance;
+			Runtime.getRuntime().addShutdownHook(new Thread("Library Url Save Thread") {
+				@Override
+				public void run() {
+					cache.save();
+				}
+			});
+		}
+		return instance;
+	}
+
+	private static LibraryUrlCache load(File cacheFile) {
+		Map<String, Entry> entries = null;
+
+		if (cacheFile.exists()) {
+			try {
+				String json = FileUtils.readFileToString(cacheFile, Charset.forName("UTF-8"));
+				entries = Utils.getGson().fromJson(json, new TypeToken<HashMap<String, Entry>>() {}.getType());
+			} catch (JsonSyntaxException e) {
+				Utils.getLogger().log(Level.WARNING, "Unable to load library urls from " + cacheFile);
+			} catch (IOException e) {
+				Utils.getLogger().log(Level.WARNING, "Unable to load library urls from " + cacheFile);
+			}
+		}
+
+		if (entries == null) {
+			entries = new HashMap<String, Entry>();
+		}
+
+		return new LibraryUrlCache(cacheFile, entries);
+	}
+
+	public synchronized void save() {
+		if (!dirty) {
+			return;
+		}
+
+		dirty = false;
+		String json = Utils.getGson().toJson(entries);
+
+		try {
+			FileUtils.writeStringToFile(cacheFile, json, Charset.forName("UTF-8"));
+		} catch (IOException e) {
+			dirty = true;
+			Utils.getLogger().log(Level.WARNING, "Unable to save library urls " + cacheFile);
+		}
+	}
+
+	/**
+	 * Gets the base url the given artifact was last found at, or null if it has to be looked up.  A stale
+	 * answer is returned as well, and a lookup is started in the background to replace it.
+	 */
+	public String getBaseUrl(final Library library, final String path, final MirrorStore mirrorStore) {
+		Entry entry;
+		synchronized (this) {
+			entry = entries.get(path);
+		}
+
+		if (entry == null || entry.baseUrl == null) {
+			return null;
+		}
+
+		if (System.currentTimeMillis() - entry.resolved > TTL_MILLIS && refreshing.add(path)) {
+			refresher.submit(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						String baseUrl = library.findBaseUrl(path, mirrorStore);
+						if (baseUrl != null) {
+							put(path, baseUrl);
+						}
+					} finally {
+						refreshing.remove(path);
+					}
+				}
+			});
+		}
+
+		return entry.baseUrl;
+	}
+
+	public synchronized void put(String path, String baseUrl) {
+		entries.put(path, new Entry(baseUrl, System.currentTimeMillis()));
+		dirty = true;
+	}
+
+	/**
+	 * Forgets whichever artifact resolved to the given url, for when downloading it failed.
+	 */
+	public synchronized void invalidateUrl(String url) {
+		boolean removed = false;
+
+		Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<String, Entry> entry = iterator.next();
+			if (url.equals(entry.getValue().baseUrl + entry.getKey())) {
+				iterator.remove();
+				removed = true;
+			}
+		}
+
+		if (removed) {
+			dirty = true;
+		}
+	}
+
+	private static class Entry {
+		private String baseUrl;
+		private long resolved;
+
+		public Entry() {
+
+		}
+
+		public Entry(String baseUrl, long resolved) {
+			this.baseUrl = baseUrl;
+			this.resolved = resolved;
+		}
+	}
+}
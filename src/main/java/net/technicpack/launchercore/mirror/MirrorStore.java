@@ -3,16 +3,20 @@ package net.technicpack.launchercore.mirror;
 import net.technicpack.launchercore.exception.DownloadException;
 import net.technicpack.launchercore.install.user.UserModel;
 import net.technicpack.launchercore.mirror.download.Download;
+import net.technicpack.launchercore.mirror.download.DownloadPriority;
 import net.technicpack.launchercore.mirror.secure.SecureToken;
 import net.technicpack.launchercore.mirror.secure.rest.ISecureMirror;
 import net.technicpack.launchercore.util.DownloadListener;
+import net.technicpack.launchercore.util.SingleFlight;
 import net.technicpack.launchercore.util.verifiers.IFileVerifier;
+import org.apache.commons.io.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
 import java.net.*;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This file is part of Technic Launcher Core.
@@ -35,6 +39,8 @@ import java.util.Map;
 
 public class MirrorStore {
     Map<String, SecureToken> secureMirrors = new HashMap<String, SecureToken>();
+    private final Map<String, String> eTags = new ConcurrentHashMap<String, String>();
+    private final SingleFlight<Download, IOException> inFlight = new SingleFlight<Download, IOException>();
     private UserModel userModel;
 
     public MirrorStore(UserModel userModel) {
@@ -70,12 +76,92 @@ public class MirrorStore {
         return urlObject;
     }
 
+    /**
+     * Gets the md5 the server reports for the given address.  Results are remembered for the rest of the
+     * session, since several lookups for the same file would otherwise each cost their own round trips.
+     */
     public String getETag(String address) throws DownloadException{
-        return Download.eTag(getFullUrl(address));
+        String eTag = eTags.get(address);
+
+        if (eTag == null) {
+            eTag = Download.eTag(getFullUrl(address));
+
+            //Failed lookups aren't remembered, so the next one can try again
+            if (eTag != null && !eTag.isEmpty()) {
+                eTags.put(address, eTag);
+            }
+        }
+
+        return eTag;
+    }
+
+    /**
+     * Downloads a file.  If a download of the same url, with the same verifier and priority, is already
+     * running, that one is waited for instead of fetching the url a second time.  Its file is copied to this
+     * caller's output if that differs, checked against this caller's verifier, and copied to this caller's cache.
+     */
+    public Download downloadFile(final String url, final String name, final String output, final File cache, final IFileVerifier verifier, final DownloadListener listener, final DownloadPriority priority) throws IOException {
+        final boolean[] fetched = new boolean[1];
+        String key = url + "\n" + priority + "\n" + getVerifierKey(verifier);
+
+        Download download = inFlight.execute(key, new SingleFlight.Loader<Download, IOException>() {
+            @Override
+            public Download load() throws IOException {
+                fetched[0] = true;
+                return Download.fileFromUrl(getFullUrl(url), name, output, cache, verifier, listener, priority);
+            }
+        });
+
+        if (fetched[0]) {
+            return download;
+        }
+
+        //We joined someone else's download, which checked the file with its own verifier and wrote its own cache
+        File outputFile = new File(output);
+        if (!copyJoinedFile(download.getOutFile(), outputFile) || (verifier != null && !verifier.isFileValid(outputFile))) {
+            return Download.fileFromUrl(getFullUrl(url), name, output, cache, verifier, listener, priority);
+        }
+        if (cache != null) {
+            FileUtils.copyFile(outputFile, cache);
+        }
+        if (listener != null) {
+            listener.stateChanged(name, 100F);
+        }
+
+        return Download.ofExistingFile(new URL(url), name, output);
+    }
+
+    /**
+     * Puts the file another caller downloaded at this caller's output.
+     *
+     * @return False if there's no file there to use, in which case the caller downloads it itself
+     */
+    private static boolean copyJoinedFile(File downloaded, File output) {
+        if (downloaded == null || !downloaded.exists()) {
+            return false;
+        }
+        if (downloaded.getAbsoluteFile().equals(output.getAbsoluteFile())) {
+            return true;
+        }
+
+        try {
+            FileUtils.copyFile(downloaded, output);
+            return true;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    private static String getVerifierKey(IFileVerifier verifier) {
+        if (verifier == null) {
+            return "";
+        }
+
+        return verifier.getClass().getName() + ":" + verifier.hashCode();
     }
 
     public Download downloadFile(String url, String name, String output, File cache, IFileVerifier verifier, DownloadListener listener) throws IOException {
-        return Download.fileFromUrl(getFullUrl(url), name, output, cache, verifier, listener);
+        return downloadFile(url, name, output, cache, verifier, listener, DownloadPriority.CRITICAL);
     }
 
     public Download downloadFile(String url, String name, String output, File cache) throws IOException {
@@ -83,7 +169,11 @@ public class MirrorStore {
     }
 
     public Download downloadFile(String url, String name, String output) throws IOException {
-        return downloadFile(url, name, output, null);
+        return downloadFile(url, name, output, (File) null);
+    }
+
+    public Download downloadFile(String url, String name, String output, DownloadPriority priority) throws IOException {
+        return downloadFile(url, name, output, null, null, null, priority);
     }
 
     private URL addDownloadKey(URL url, String downloadHost, String downloadKey, String clientId) {
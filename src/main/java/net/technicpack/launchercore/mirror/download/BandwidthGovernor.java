@@ -0,0 +1,173 @@
+/*
+ * This file is part of Technic Launcher Core.
+ * Copyright (C) 2013 Syndicate, LLC
+ *
+ * Technic Launcher Core is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Technic Launcher Core is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * as well as a copy of the GNU Lesser General Public License,
+ * along with Technic Launcher Core.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.technicpack.launchercore.mirror.download;
+
+import net.technicpack.launchercore.util.Settings;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shares out bandwidth between every running download.  Cosmetic downloads - pack images and skins - hold
+ * off starting while install traffic is running, so they don't slow down an install.  Install traffic itself
+ * is never held back for them.  If a rate cap is set in the settings, it is split between the classes that
+ * are downloading by weight, so assets and cosmetic downloads lose out to critical ones without stalling.
+ * <p>
+ * Downloads call {@link #awaitTurn} before they connect and {@link #throttle} after each chunk they read,
+ * which sleeps for however long that chunk has to be paid for under the cap.
+ */
+public class BandwidthGovernor {
+	//A cosmetic download that has waited this long goes ahead anyway, rather than tie up its thread forever
+	private static final long MAX_DEFER_MILLIS = 30000;
+	//Share of the rate cap each class gets while it is downloading, by ordinal
+	private static final int[] CAP_WEIGHTS = {4, 2, 1};
+	private static final BandwidthGovernor instance = new BandwidthGovernor();
+
+	private final AtomicInteger[] active;
+	private final Pacer[] capPacers;
+
+	private BandwidthGovernor() {
+		int classes = DownloadPriority.values().length;
+		active = new AtomicInteger[classes];
+		capPacers = new Pacer[classes];
+
+		for (int i = 0; i < classes; i++) {
+			active[i] = new AtomicInteger();
+			capPacers[i] = new Pacer();
+		}
+	}
+
+	public static BandwidthGovernor getInstance() {
+		return instance;
+	}
+
+	public void begin(DownloadPriority priority) {
+		active[priority.ordinal()].incrementAndGet();
+	}
+
+	public void end(DownloadPriority priority) {
+		active[priority.ordinal()].decrementAndGet();
+
+		synchronized (this) {
+			notifyAll();
+		}
+	}
+
+	/**
+	 * @return Whether the download should hold off because install traffic is running
+	 */
+	public boolean isYielding(DownloadPriority priority) {
+		if (priority != DownloadPriority.COSMETIC) {
+			return false;
+		}
+
+		return active[DownloadPriority.CRITICAL.ordinal()].get() > 0 || active[DownloadPriority.ASSET.ordinal()].get() > 0;
+	}
+
+	/**
+	 * Waits, before a download connects, until it may start.  Only cosmetic downloads ever wait, and only
+	 * while install traffic is running, up to a limit.  Nothing is connected while waiting, so there is no
+	 * idle socket for the server to time out.
+	 */
+	public void awaitTurn(DownloadPriority priority) throws InterruptedIOException {
+		long deadline = System.currentTimeMillis() + MAX_DEFER_MILLIS;
+
+		synchronized (this) {
+			while (isYielding(priority)) {
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					return;
+				}
+
+				try {
+					wait(remaining);
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while waiting for install downloads to finish.");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Accounts for bytes a download just read, waiting as long as the rate cap requires.  The transfer's
+	 * stall timeout is held off while it waits, since it isn't stalled.
+	 */
+	public void throttle(DownloadPriority priority, int bytes, TransferMonitor.Transfer transfer) throws InterruptedIOException {
+		long rateCap = Settings.getDownloadRateLimit() * 1024L;
+		if (rateCap <= 0) {
+			return;
+		}
+
+		long wait = capPacers[priority.ordinal()].reserve(bytes, getCapShare(priority, rateCap));
+		if (wait <= 0) {
+			return;
+		}
+
+		transfer.setPaused(true);
+		try {
+			Thread.sleep(wait);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for bandwidth.");
+		} finally {
+			transfer.setPaused(false);
+		}
+	}
+
+	/**
+	 * @return The part of the cap the class gets, weighed against the other classes downloading right now
+	 */
+	private long getCapShare(DownloadPriority priority, long rateCap) {
+		int totalWeight = CAP_WEIGHTS[priority.ordinal()];
+
+		for (DownloadPriority other : DownloadPriority.values()) {
+			if (other != priority && active[other.ordinal()].get() > 0) {
+				totalWeight += CAP_WEIGHTS[other.ordinal()];
+			}
+		}
+
+		return Math.max(1, rateCap * CAP_WEIGHTS[priority.ordinal()] / totalWeight);
+	}
+
+	/**
+	 * Hands out send times at a given rate.  Each reservation is pushed back behind the ones before it,
+	 * so every download sharing a pacer gets its turn in order.
+	 */
+	private static class Pacer {
+		private long next = 0;
+
+		/**
+		 * @return How many milliseconds to wait before the bytes may be counted as sent
+		 */
+		public synchronized long reserve(long bytes, long bytesPerSecond) {
+			long now = System.nanoTime();
+
+			//Time nobody used doesn't build up into a burst
+			if (next < now) {
+				next = now;
+			}
+
+			long wait = next - now;
+			next += bytes * 1000000000L / bytesPerSecond;
+			return wait / 1000000L;
+		}
+	}
+}
@@ -21,44 +21,45 @@ package net.technicpack.launchercore.mirror.download;
 
 import java.io.*;
 import java.net.*;
-import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 
 import net.technicpack.launchercore.exception.DownloadException;
 import net.technicpack.launchercore.exception.PermissionDeniedException;
 
 import net.technicpack.launchercore.util.DownloadListener;
-import net.technicpack.launchercore.util.Utils;
+import net.technicpack.launchercore.util.HttpClient;
+import net.technicpack.launchercore.util.HttpMetadata;
 import net.technicpack.launchercore.util.verifiers.IFileVerifier;
+import net.technicpack.launchercore.util.verifiers.IStreamingFileVerifier;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.FileUtils;
 
 public class Download implements Runnable {
     private static final long TIMEOUT = 30000;
+    private static final int BUFFER_SIZE = 64 * 1024;
 
     private URL url;
     private long size = -1;
-    private long downloaded = 0;
     private String outPath;
     private String name;
     private DownloadListener listener;
     private Result result = Result.FAILURE;
     private File outFile = null;
+    private File partFile = null;
+    private TransferMonitor.Transfer transfer = null;
+    private DownloadPriority priority = DownloadPriority.CRITICAL;
+    private boolean computeMD5 = false;
+    private String md5 = null;
     private Exception exception = null;
     private static final int DOWNLOAD_RETRIES = 3;
 
     public static HttpURLConnection openHttpUrlConnection(URL url) throws MalformedURLException, IOException {
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        conn.setDoInput(true);
-        conn.setDoOutput(false);
-        System.setProperty("http.agent", "Mozilla/5.0 (Windows NT 6.1; WOW64) AppleWebKit/535.19 (KHTML, like Gecko) Chrome/18.0.1025.162 Safari/535.19");
-        conn.setRequestProperty("User-Agent", "Mozilla/5.0 (Windows NT 6.1; WOW64) AppleWebKit/535.19 (KHTML, like Gecko) Chrome/18.0.1025.162 Safari/535.19");
-        HttpURLConnection.setFollowRedirects(true);
-        conn.setUseCaches(false);
-        conn.setInstanceFollowRedirects(true);
-        return conn;
+        return HttpClient.open(url);
     }
 
     public static String eTag(String url){
@@ -74,24 +75,18 @@ public class Download implements Runnable {
         String md5 = "";
 
         try {
-            HttpURLConnection conn = openHttpUrlConnection(url);
+            HttpMetadata metadata = HttpClient.probe(url);
+            String eTag = metadata.isSuccess() ? metadata.getETag() : null;
 
-            String eTag = conn.getHeaderField("ETag");
             if (eTag != null) {
                 eTag = eTag.replaceAll("^\"|\"$", "");
                 if (eTag.length() == 32) {
                     md5 = eTag;
                 } else {
                     // Search for the .md5 asssociated file if the header is missing
-                    HttpURLConnection conn_md5 = openHttpUrlConnection(new URL(url.toString() + ".md5"));
-                    InputStream in = conn_md5.getInputStream();
-                    try {
-                        eTag = IOUtils.toString(in).trim().replaceAll("\n ", "");
-                        if (eTag.length() == 32) {
-                            md5 = eTag;
-                        }
-                    } finally {
-                        IOUtils.closeQuietly(in);
+                    eTag = HttpClient.readString(openHttpUrlConnection(new URL(url.toString() + ".md5"))).trim().replaceAll("\n ", "");
+                    if (eTag.length() == 32) {
+                        md5 = eTag;
                     }
                 }
             }
@@ -108,6 +103,9 @@ public class Download implements Runnable {
         return fileFromUrl(new URL(url), name, output, cache, verifier, listener);
     }
     public static Download fileFromUrl(URL url, String name, String output, File cache, IFileVerifier verifier, DownloadListener listener) throws IOException {
+        return fileFromUrl(url, name, output, cache, verifier, listener, DownloadPriority.CRITICAL);
+    }
+    public static Download fileFromUrl(URL url, String name, String output, File cache, IFileVerifier verifier, DownloadListener listener, DownloadPriority priority) throws IOException {
         int tries = DOWNLOAD_RETRIES;
         File outputFile = null;
         Download download = null;
@@ -117,20 +115,21 @@ public class Download implements Runnable {
             tries--;
             download = new Download(url, name, output);
             download.setListener(listener);
+            download.setPriority(priority);
+            download.setComputeMD5(verifier instanceof IStreamingFileVerifier && ((IStreamingFileVerifier) verifier).needsMD5());
             download.run();
             if (download.getResult() != Download.Result.SUCCESS) {
-                if (download.getOutFile() != null) {
-                    download.getOutFile().delete();
-                }
+                //Any partial file is kept so the next try can pick up where this one left off
                 System.err.println("Download of " + url_string + " Failed!");
                 if (listener != null) {
                     listener.stateChanged("Download failed, retries remaining: " + tries, 0F);
                 }
             } else {
-                if (download.getOutFile().exists() && (verifier == null || verifier.isFileValid(download.getOutFile()))) {
+                if (download.getOutFile().exists() && (verifier == null || isDownloadValid(download, verifier))) {
                     outputFile = download.getOutFile();
                     break;
                 }
+                download.getOutFile().delete();
             }
         }
         if (outputFile == null) {
@@ -142,14 +141,41 @@ public class Download implements Runnable {
         return download;
     }
 
+    private static boolean isDownloadValid(Download download, IFileVerifier verifier) {
+        if (verifier instanceof IStreamingFileVerifier) {
+            IStreamingFileVerifier streamingVerifier = (IStreamingFileVerifier) verifier;
+
+            //Segmented downloads arrive out of order and can't be hashed as they come in, those get read back
+            if (download.getMD5() != null || !streamingVerifier.needsMD5()) {
+                return streamingVerifier.isStreamValid(download.getMD5(), download.getOutFile().length());
+            }
+        }
+
+        return verifier.isFileValid(download.getOutFile());
+    }
+
     public Download(URL url, String name, String outPath) throws MalformedURLException {
         this.url = url;
         this.outPath = outPath;
         this.name = name;
     }
 
+    /**
+     * A download of a file some other download already put in place, for callers that were handed the file
+     * without fetching it themselves.
+     */
+    public static Download ofExistingFile(URL url, String name, String outPath) throws MalformedURLException {
+        Download download = new Download(url, name, outPath);
+        download.outFile = new File(outPath);
+        download.result = Result.SUCCESS;
+        return download;
+    }
+
     public float getProgress() {
-        return ((float) downloaded / size) * 100;
+        if (transfer != null) {
+            return transfer.getProgress();
+        }
+        return 0;
     }
 
     public Exception getException() {
@@ -159,42 +185,125 @@ public class Download implements Runnable {
     @Override
     @SuppressWarnings("unused")
     public void run() {
-        ReadableByteChannel rbc = null;
-        FileOutputStream fos = null;
+        InputStream in = null;
+        RandomAccessFile raf = null;
+        HttpURLConnection connection = null;
+        boolean governed = false;
         try {
-            HttpURLConnection conn = Utils.openHttpConnection(url);
+            outFile = new File(outPath);
+            partFile = PartialDownload.getPartFile(outFile);
+
+            PartialDownload partial = PartialDownload.load(partFile, url.toString());
+            long offset = 0;
+
+            //Cosmetic downloads wait for install traffic before connecting, not partway through
+            BandwidthGovernor.getInstance().awaitTurn(priority);
+
+            final HttpURLConnection conn = HttpClient.open(url);
+            connection = conn;
+            conn.setConnectTimeout((int) TIMEOUT);
+            conn.setReadTimeout((int) TIMEOUT);
+            if (partial != null) {
+                offset = partial.getResumeOffset();
+                HttpClient.requestRange(conn, offset + "-");
+                conn.setRequestProperty("If-Range", partial.getIfRangeValidator());
+            }
+
             int response = conn.getResponseCode();
             int responseFamily = response / 100;
 
-            if (responseFamily == 3) {
+            if (response == 416) {
+                //Whatever we have on disk doesn't line up with the file anymore, start over on the next try
+                PartialDownload.discard(partFile);
+                throw new DownloadException("The server could not resume " + url + " from byte " + offset + ".");
+            } else if (responseFamily == 3) {
                 throw new DownloadException("The server issued a redirect response which Technic failed to follow.");
             } else if (responseFamily != 2) {
                 throw new DownloadException("The server issued a " + response + " response code.");
             }
 
-            InputStream in = getConnectionInputStream(conn);
+            boolean resumed = (response == 206 && isExpectedRange(conn, offset));
+            if (!resumed) {
+                if (response == 206) {
+                    //Asking for the same range again would only get the same answer, start over on the next try
+                    PartialDownload.discard(partFile);
+                    throw new DownloadException("The server sent an unexpected range for " + url + ".");
+                }
+                offset = 0;
+            } else {
+                System.out.println("Resuming download of " + url + " from byte " + offset);
+            }
 
-            size = conn.getContentLength();
-            outFile = new File(outPath);
-            outFile.delete();
+            in = getConnectionInputStream(conn);
 
-            rbc = Channels.newChannel(in);
-            fos = new FileOutputStream(outFile);
+            //A compressed body's Content-Length doesn't tell us how big the file will be
+            long contentLength = HttpClient.getContentLength(conn);
+            size = (contentLength > 0) ? offset + contentLength : -1;
+
+            transfer = TransferMonitor.getInstance().begin(name, size, offset, TIMEOUT, listener, new Closeable() {
+                @Override
+                public void close() {
+                    conn.disconnect();
+                }
+            });
+
+            BandwidthGovernor.getInstance().begin(priority);
+            governed = true;
 
             stateChanged();
 
-            Thread progress = new MonitorThread(Thread.currentThread(), rbc);
-            progress.start();
+            if (!resumed && SegmentedDownload.canSegment(conn, contentLength)) {
+                //A preallocated file full of holes can't be resumed from its length, so it gets no sidecar
+                PartialDownload.discard(partFile);
 
-            fos.getChannel().transferFrom(rbc, 0, size > 0 ? size : Integer.MAX_VALUE);
-            in.close();
-            rbc.close();
-            progress.interrupt();
-            if (size > 0) {
-                if (size == outFile.length()) {
-                    result = Result.SUCCESS;
+                try {
+                    new SegmentedDownload(url, partFile, contentLength, conn, transfer, priority).run(in);
+                } catch (IOException e) {
+                    PartialDownload.discard(partFile);
+                    throw e;
+                } finally {
+                    conn.disconnect();
                 }
             } else {
+                //Ranges count encoded bytes, which don't line up with what is written to disk, so a compressed
+                //response is never resumed
+                boolean encoded = HttpClient.isEncoded(conn);
+                if (encoded) {
+                    PartialDownload.discard(partFile);
+                }
+
+                raf = new RandomAccessFile(partFile, "rw");
+                if (!resumed) {
+                    raf.setLength(0);
+                }
+                if (!encoded) {
+                    new PartialDownload(partFile, url.toString(), conn).save();
+                }
+
+                MessageDigest digest = null;
+                if (computeMD5) {
+                    //Only what's already on disk from an earlier try has to be read back, the rest is hashed as it arrives
+                    digest = DigestUtils.getMd5Digest();
+                    if (resumed) {
+                        updateDigest(digest, partFile, offset);
+                    }
+                    in = new DigestInputStream(in, digest);
+                }
+
+                copy(in, raf.getChannel(), offset, contentLength, transfer, priority);
+                raf.close();
+
+                if (digest != null) {
+                    md5 = Hex.encodeHexString(digest.digest());
+                }
+            }
+
+            if (transfer.isTimedOut()) {
+                throw new DownloadException("Download of " + url + " stalled for more than " + (TIMEOUT / 1000) + " seconds.");
+            }
+
+            if (size <= 0 || size == partFile.length()) {
+                completePartFile();
                 result = Result.SUCCESS;
             }
         } catch (PermissionDeniedException e) {
@@ -207,43 +316,97 @@ public class Download implements Runnable {
             exception = e;
             e.printStackTrace();
         } finally {
-            IOUtils.closeQuietly(fos);
-            IOUtils.closeQuietly(rbc);
+            if (transfer != null) {
+                TransferMonitor.getInstance().end(transfer);
+            }
+            if (governed) {
+                BandwidthGovernor.getInstance().end(priority);
+            }
+            IOUtils.closeQuietly(raf);
+            HttpClient.release(connection, in);
         }
     }
 
-    protected InputStream getConnectionInputStream(final URLConnection urlconnection) throws DownloadException {
-        final AtomicReference<InputStream> is = new AtomicReference<InputStream>();
-
-        for (int j = 0; (j < 3) && (is.get() == null); j++) {
-            StreamThread stream = new StreamThread(urlconnection, is);
-            stream.start();
-            int iterationCount = 0;
-            while ((is.get() == null) && (iterationCount++ < 5)) {
-                try {
-                    stream.join(1000L);
-                } catch (InterruptedException ignore) {
-                }
+    /**
+     * Copies a response body into the file at the given position, counting every chunk against the
+     * transfer as it goes and giving way to other downloads as the bandwidth governor asks.
+     *
+     * @param length Number of bytes expected, or -1 to copy until the end of the stream
+     * @return The number of bytes copied
+     */
+    static long copy(InputStream in, FileChannel out, long position, long length, TransferMonitor.Transfer transfer, DownloadPriority priority) throws IOException {
+        BandwidthGovernor governor = BandwidthGovernor.getInstance();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long remaining = (length >= 0) ? length : Long.MAX_VALUE;
+        long copied = 0;
+
+        while (remaining > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read == -1) {
+                break;
             }
 
-            if (stream.permDenied.get()) {
-                throw new PermissionDeniedException("Permission denied!");
+            ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+            while (chunk.hasRemaining()) {
+                position += out.write(chunk, position);
             }
 
-            if (is.get() != null) {
-                break;
-            }
-            try {
-                stream.interrupt();
-                stream.join();
-            } catch (InterruptedException ignore) {
+            remaining -= read;
+            copied += read;
+            transfer.addBytes(read);
+            governor.throttle(priority, read, transfer);
+        }
+
+        return copied;
+    }
+
+    private void updateDigest(MessageDigest digest, File file, long length) throws IOException {
+        InputStream existing = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long remaining = length;
+
+            while (remaining > 0) {
+                int read = existing.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read == -1) {
+                    throw new DownloadException("The partial download " + file.getName() + " is shorter than expected.");
+                }
+                digest.update(buffer, 0, read);
+                remaining -= read;
             }
+        } finally {
+            IOUtils.closeQuietly(existing);
+        }
+    }
+
+    private boolean isExpectedRange(HttpURLConnection conn, long offset) {
+        String contentRange = conn.getHeaderField("Content-Range");
+        return contentRange != null && contentRange.trim().startsWith("bytes " + offset + "-");
+    }
+
+    private void completePartFile() throws IOException {
+        if (outFile.exists() && !outFile.delete()) {
+            throw new DownloadException("Unable to replace " + outFile.getAbsolutePath() + ".");
+        }
+
+        if (!partFile.renameTo(outFile)) {
+            FileUtils.copyFile(partFile, outFile);
         }
 
-        if (is.get() == null) {
-            throw new DownloadException("Unable to download file from " + urlconnection.getURL());
+        PartialDownload.discard(partFile);
+    }
+
+    protected InputStream getConnectionInputStream(final URLConnection urlconnection) throws DownloadException {
+        try {
+            return new BufferedInputStream(HttpClient.getBody(urlconnection));
+        } catch (SocketException e) {
+            if ("Permission denied: connect".equalsIgnoreCase(e.getMessage())) {
+                throw new PermissionDeniedException("Permission denied!");
+            }
+            throw new DownloadException("Unable to download file from " + urlconnection.getURL(), e);
+        } catch (IOException e) {
+            throw new DownloadException("Unable to download file from " + urlconnection.getURL(), e);
         }
-        return new BufferedInputStream(is.get());
     }
 
     private void stateChanged() {
@@ -251,6 +414,21 @@ public class Download implements Runnable {
             listener.stateChanged(name, getProgress());
     }
 
+    public void setComputeMD5(boolean computeMD5) {
+        this.computeMD5 = computeMD5;
+    }
+
+    /**
+     * @return The md5 of the downloaded file if it was hashed during the transfer, otherwise null
+     */
+    public String getMD5() {
+        return md5;
+    }
+
+    public void setPriority(DownloadPriority priority) {
+        this.priority = priority;
+    }
+
     public void setListener(DownloadListener listener) {
         this.listener = listener;
     }
@@ -263,75 +441,6 @@ public class Download implements Runnable {
         return outFile;
     }
 
-    private static class StreamThread extends Thread {
-        private final URLConnection urlconnection;
-        private final AtomicReference<InputStream> is;
-        public final AtomicBoolean permDenied = new AtomicBoolean(false);
-
-        public StreamThread(URLConnection urlconnection, AtomicReference<InputStream> is) {
-            this.urlconnection = urlconnection;
-            this.is = is;
-        }
-
-        @Override
-        public void run() {
-            try {
-                is.set(urlconnection.getInputStream());
-            } catch (SocketException e) {
-                if (e.getMessage().equalsIgnoreCase("Permission denied: connect")) {
-                    permDenied.set(true);
-                }
-            } catch (IOException ignore) {
-            }
-        }
-    }
-
-    private class MonitorThread extends Thread {
-        private final ReadableByteChannel rbc;
-        private final Thread downloadThread;
-        private long last = System.currentTimeMillis();
-
-        public MonitorThread(Thread downloadThread, ReadableByteChannel rbc) {
-            super("Download Monitor Thread");
-            this.setDaemon(true);
-            this.rbc = rbc;
-            this.downloadThread = downloadThread;
-        }
-
-        @Override
-        public void run() {
-            while (!this.isInterrupted()) {
-                long diff = outFile.length() - downloaded;
-                downloaded = outFile.length();
-                if (diff == 0) {
-                    if ((System.currentTimeMillis() - last) > TIMEOUT) {
-                        if (listener != null) {
-                            listener.stateChanged("Download Failed", getProgress());
-                        }
-                        try {
-                            rbc.close();
-                            downloadThread.interrupt();
-                        } catch (Exception ignore) {
-                            //We catch all exceptions here, because ReadableByteChannel is AWESOME
-                            //and was throwing NPE's sometimes when we tried to close it after
-                            //the connection broke.
-                        }
-                        return;
-                    }
-                } else {
-                    last = System.currentTimeMillis();
-                }
-
-                stateChanged();
-                try {
-                    sleep(50);
-                } catch (InterruptedException ignore) {
-                    return;
-                }
-            }
-        }
-    }
-
     public enum Result {
         SUCCESS, FAILURE, PERMISSION_DENIED,
     }
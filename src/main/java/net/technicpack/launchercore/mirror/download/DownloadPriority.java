@@ -0,0 +1,39 @@
+/*
+ * This file is part of Technic Launcher Core.
+ * Copyright (C) 2013 Syndicate, LLC
+ *
+ * Technic Launcher Core is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Technic Launcher Core is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * as well as a copy of the GNU Lesser General Public License,
+ * along with Technic Launcher Core.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.technicpack.launchercore.mirror.download;
+
+/**
+ * How much a download matters to whatever is waiting on it.  Cosmetic downloads give way to the other
+ * classes, and under a rate cap the more important classes get the bigger share.
+ */
+public enum DownloadPriority {
+	/**
+	 * Files an install can't finish without: the minecraft jar, libraries and mods
+	 */
+	CRITICAL,
+	/**
+	 * Game assets, needed for the install too but not worth holding up the rest of it for
+	 */
+	ASSET,
+	/**
+	 * Pack logos, backgrounds and skins, which are only for show
+	 */
+	COSMETIC
+}
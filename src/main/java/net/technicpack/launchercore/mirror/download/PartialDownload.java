@@ -0,0 +1,136 @@
+/*
+ * This file is part of Technic Launcher Core.
+ * Copyright (C) 2013 Syndicate, LLC
+ *
+ * Technic Launcher Core is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Technic Launcher Core is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * as well as a copy of the GNU Lesser General Public License,
+ * along with Technic Launcher Core.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.technicpack.launchercore.mirror.download;
+
+import com.google.gson.JsonSyntaxException;
+import net.technicpack.launchercore.util.Utils;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.nio.charset.Charset;
+import java.util.logging.Level;
+
+/**
+ * Sidecar for a partially downloaded .part file.  It remembers the validators the server sent with the
+ * body, so that a later attempt can ask for the rest of the file with Range/If-Range and be sure it is
+ * appending to the same version of the content.
+ */
+public class PartialDownload {
+	private String url;
+	private String etag;
+	private String lastModified;
+
+	private transient File partFile;
+
+	public PartialDownload() {
+
+	}
+
+	public PartialDownload(File partFile, String url, HttpURLConnection conn) {
+		this.partFile = partFile;
+		this.url = url;
+		this.etag = conn.getHeaderField("ETag");
+		this.lastModified = conn.getHeaderField("Last-Modified");
+	}
+
+	public static File getPartFile(File outFile) {
+		return new File(outFile.getAbsolutePath() + ".part");
+	}
+
+	/**
+	 * Loads the sidecar for the given part file, if the part file can be resumed for the given url.
+	 *
+	 * @return The sidecar, or null if there is nothing to resume.
+	 */
+	public static PartialDownload load(File partFile, String url) {
+		File info = getInfoFile(partFile);
+
+		if (!partFile.exists() || partFile.length() == 0 || !info.exists()) {
+			return null;
+		}
+
+		try {
+			String json = FileUtils.readFileToString(info, Charset.forName("UTF-8"));
+			PartialDownload partial = Utils.getGson().fromJson(json, PartialDownload.class);
+
+			if (partial == null || partial.getIfRangeValidator() == null || !url.equals(partial.url)) {
+				return null;
+			}
+
+			partial.partFile = partFile;
+			return partial;
+		} catch (JsonSyntaxException e) {
+			Utils.getLogger().log(Level.WARNING, "Unable to read partial download info " + info);
+		} catch (IOException e) {
+			Utils.getLogger().log(Level.WARNING, "Unable to read partial download info " + info);
+		}
+
+		return null;
+	}
+
+	/**
+	 * The value to send as If-Range.  Weak ETags may not be used for ranged requests, in which case
+	 * the Last-Modified date is used instead.
+	 */
+	public String getIfRangeValidator() {
+		if (etag != null && !etag.isEmpty() && !etag.startsWith("W/")) {
+			return etag;
+		}
+
+		if (lastModified != null && !lastModified.isEmpty()) {
+			return lastModified;
+		}
+
+		return null;
+	}
+
+	public long getResumeOffset() {
+		return partFile.length();
+	}
+
+	/**
+	 * Saves the sidecar, or removes any stale one if the server gave us nothing we can resume against.
+	 */
+	public void save() {
+		File info = getInfoFile(partFile);
+
+		if (getIfRangeValidator() == null) {
+			FileUtils.deleteQuietly(info);
+			return;
+		}
+
+		try {
+			FileUtils.writeStringToFile(info, Utils.getGson().toJson(this), Charset.forName("UTF-8"));
+		} catch (IOException e) {
+			Utils.getLogger().log(Level.WARNING, "Unable to save partial download info " + info);
+		}
+	}
+
+	public static void discard(File partFile) {
+		FileUtils.deleteQuietly(partFile);
+		FileUtils.deleteQuietly(getInfoFile(partFile));
+	}
+
+	private static File getInfoFile(File partFile) {
+		return new File(partFile.getAbsolutePath() + ".json");
+	}
+}
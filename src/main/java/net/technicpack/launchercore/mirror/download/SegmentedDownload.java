@@ -0,0 +1,206 @@
+/*
+ * This file is part of Technic Launcher Core.
+ * Copyright (C) 2013 Syndicate, LLC
+ *
+ * Technic Launcher Core is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Technic Launcher Core is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * as well as a copy of the GNU Lesser General Public License,
+ * along with Technic Launcher Core.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.technicpack.launchercore.mirror.download;
+
+import net.technicpack.launchercore.exception.DownloadException;
+import net.technicpack.launchercore.util.HttpClient;
+import org.apache.commons.io.IOUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Fetches one large file over several connections at once.  The file is preallocated and each
+ * connection requests its own byte range and writes it at its offset.  The first segment is read from
+ * the response that was already opened for the whole file, so no extra round trip is spent finding
+ * out the file's size.
+ */
+public class SegmentedDownload {
+	public static final long SEGMENT_THRESHOLD = 4 * 1024 * 1024;
+	private static final long MIN_SEGMENT_SIZE = 1024 * 1024;
+	private static final int MAX_SEGMENTS = 4;
+	private static final int READ_TIMEOUT = 30000;
+
+	private static final ExecutorService segmentPool = Executors.newCachedThreadPool(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "Download Segment Thread");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	private final URL url;
+	private final File file;
+	private final long size;
+	private final String validator;
+	private final TransferMonitor.Transfer transfer;
+	private final DownloadPriority priority;
+
+	public SegmentedDownload(URL url, File file, long size, HttpURLConnection conn, TransferMonitor.Transfer transfer, DownloadPriority priority) {
+		this.url = url;
+		this.file = file;
+		this.size = size;
+		this.transfer = transfer;
+		this.priority = priority;
+
+		String etag = conn.getHeaderField("ETag");
+		if (etag != null && !etag.startsWith("W/")) {
+			this.validator = etag;
+		} else {
+			this.validator = conn.getHeaderField("Last-Modified");
+		}
+	}
+
+	/**
+	 * Whether a full (200) response is worth splitting up: it has to be big enough, and the host has to
+	 * tell us it serves byte ranges.
+	 */
+	public static boolean canSegment(HttpURLConnection conn, long contentLength) {
+		if (contentLength < SEGMENT_THRESHOLD) {
+			return false;
+		}
+
+		String acceptRanges = conn.getHeaderField("Accept-Ranges");
+		return acceptRanges != null && acceptRanges.toLowerCase().contains("bytes");
+	}
+
+	/**
+	 * Downloads every segment into the file.
+	 *
+	 * @param firstSegment The body of the response to the original, unranged request.  Only the first
+	 *                     segment's worth of bytes are read from it.
+	 */
+	public void run(InputStream firstSegment) throws IOException {
+		int segments = (int) Math.min(MAX_SEGMENTS, size / MIN_SEGMENT_SIZE);
+		long segmentSize = size / segments;
+
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.setLength(size);
+			FileChannel channel = raf.getChannel();
+
+			List<Future<Void>> futures = new ArrayList<Future<Void>>(segments - 1);
+			for (int i = 1; i < segments; i++) {
+				long start = i * segmentSize;
+				long end = (i == segments - 1) ? size - 1 : start + segmentSize - 1;
+				futures.add(segmentPool.submit(new SegmentFetch(channel, start, end)));
+			}
+
+			IOException failure = null;
+			try {
+				copy(firstSegment, channel, 0, segmentSize);
+			} catch (IOException ex) {
+				failure = ex;
+				cancel(futures);
+			}
+
+			for (Future<Void> future : futures) {
+				try {
+					future.get();
+				} catch (ExecutionException ex) {
+					if (failure == null) {
+						failure = (ex.getCause() instanceof IOException) ? (IOException) ex.getCause() : new DownloadException("Failed to download segment of " + url, ex.getCause());
+						cancel(futures);
+					}
+				} catch (InterruptedException ex) {
+					cancel(futures);
+					Thread.currentThread().interrupt();
+					throw new DownloadException("Interrupted while downloading " + url);
+				} catch (CancellationException ignore) {
+				}
+			}
+
+			if (failure != null) {
+				throw failure;
+			}
+		} finally {
+			IOUtils.closeQuietly(raf);
+		}
+	}
+
+	private void cancel(List<Future<Void>> futures) {
+		for (Future<Void> future : futures) {
+			future.cancel(true);
+		}
+	}
+
+	private void copy(InputStream in, FileChannel channel, long position, long length) throws IOException {
+		long copied = Download.copy(in, channel, position, length, transfer, priority);
+
+		if (copied < length) {
+			throw new DownloadException("Connection to " + url + " closed with " + (length - copied) + " bytes of a segment left.");
+		}
+	}
+
+	private class SegmentFetch implements Callable<Void> {
+		private final FileChannel channel;
+		private final long start;
+		private final long end;
+
+		public SegmentFetch(FileChannel channel, long start, long end) {
+			this.channel = channel;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public Void call() throws IOException {
+			HttpURLConnection conn = HttpClient.open(url);
+			conn.setConnectTimeout(READ_TIMEOUT);
+			conn.setReadTimeout(READ_TIMEOUT);
+			HttpClient.requestRange(conn, start + "-" + end);
+			if (validator != null) {
+				conn.setRequestProperty("If-Range", validator);
+			}
+
+			InputStream in = null;
+			try {
+				int response = conn.getResponseCode();
+				String contentRange = conn.getHeaderField("Content-Range");
+
+				if (response != 206 || contentRange == null || !contentRange.trim().startsWith("bytes " + start + "-")) {
+					throw new DownloadException("The server did not return bytes " + start + "-" + end + " of " + url + " (response " + response + ").");
+				}
+
+				in = conn.getInputStream();
+				copy(in, channel, start, end - start + 1);
+			} finally {
+				HttpClient.release(conn, in);
+			}
+
+			return null;
+		}
+	}
+}
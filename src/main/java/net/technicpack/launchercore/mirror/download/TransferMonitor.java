@@ -0,0 +1,196 @@
+/*
+ * This file is part of Technic Launcher Core.
+ * Copyright (C) 2013 Syndicate, LLC
+ *
+ * Technic Launcher Core is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Technic Launcher Core is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * as well as a copy of the GNU Lesser General Public License,
+ * along with Technic Launcher Core.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.technicpack.launchercore.mirror.download;
+
+import net.technicpack.launchercore.util.DownloadListener;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Watches every active transfer from a single shared thread.  Transfers count their own bytes as they
+ * copy them, and on each tick the monitor reports progress for the ones that moved and aborts the ones
+ * that have been stalled for longer than their timeout.  The tick only runs while there is at least one
+ * transfer in flight.
+ */
+public class TransferMonitor {
+	private static final long TICK_MILLIS = 100;
+	private static final TransferMonitor instance = new TransferMonitor();
+
+	private final List<Transfer> transfers = new CopyOnWriteArrayList<Transfer>();
+	private final ScheduledExecutorService scheduler;
+	private ScheduledFuture<?> ticker;
+
+	private TransferMonitor() {
+		scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "Download Monitor Thread");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	public static TransferMonitor getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Starts tracking a transfer.
+	 *
+	 * @param name         Name reported to the listener
+	 * @param size         Total size of the file, or -1 if it isn't known
+	 * @param initialBytes Bytes of the file that were already on disk before this transfer started
+	 * @param timeout      How long the transfer may go without receiving a byte before it is aborted
+	 * @param listener     Listener to report progress to - may be null
+	 * @param connection   Closed to abort the transfer when it stalls
+	 */
+	public Transfer begin(String name, long size, long initialBytes, long timeout, DownloadListener listener, Closeable connection) {
+		Transfer transfer = new Transfer(name, size, initialBytes, timeout, listener, connection);
+		transfers.add(transfer);
+
+		synchronized (this) {
+			if (ticker == null) {
+				ticker = scheduler.scheduleAtFixedRate(new Runnable() {
+					@Override
+					public void run() {
+						tick();
+					}
+				}, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+			}
+		}
+
+		return transfer;
+	}
+
+	public void end(Transfer transfer) {
+		transfers.remove(transfer);
+
+		synchronized (this) {
+			if (transfers.isEmpty() && ticker != null) {
+				ticker.cancel(false);
+				ticker = null;
+			}
+		}
+	}
+
+	private void tick() {
+		long now = System.currentTimeMillis();
+
+		for (Transfer transfer : transfers) {
+			try {
+				transfer.check(now);
+			} catch (Throwable t) {
+				//A misbehaving listener must not take down the monitor for every other transfer
+				t.printStackTrace();
+			}
+		}
+	}
+
+	public static class Transfer {
+		private final String name;
+		private final long size;
+		private final long timeout;
+		private final DownloadListener listener;
+		private final Closeable connection;
+		private final AtomicLong bytes;
+
+		private long lastReported;
+		private volatile long lastActivity;
+		private volatile boolean paused = false;
+		private volatile boolean timedOut = false;
+
+		private Transfer(String name, long size, long initialBytes, long timeout, DownloadListener listener, Closeable connection) {
+			this.name = name;
+			this.size = size;
+			this.timeout = timeout;
+			this.listener = listener;
+			this.connection = connection;
+			this.bytes = new AtomicLong(initialBytes);
+			this.lastReported = initialBytes;
+			this.lastActivity = System.currentTimeMillis();
+		}
+
+		public void addBytes(long count) {
+			bytes.addAndGet(count);
+		}
+
+		public long getBytes() {
+			return bytes.get();
+		}
+
+		public float getProgress() {
+			if (size <= 0) {
+				return 0;
+			}
+			return ((float) bytes.get() / size) * 100;
+		}
+
+		/**
+		 * Marks the transfer as held back on purpose, so it isn't taken for stalled in the meantime.
+		 */
+		public void setPaused(boolean paused) {
+			if (!paused) {
+				lastActivity = System.currentTimeMillis();
+			}
+			this.paused = paused;
+		}
+
+		public boolean isTimedOut() {
+			return timedOut;
+		}
+
+		private void check(long now) {
+			if (timedOut) {
+				return;
+			}
+
+			long current = bytes.get();
+			if (current != lastReported) {
+				lastReported = current;
+				lastActivity = now;
+
+				if (listener != null) {
+					listener.stateChanged(name, getProgress());
+				}
+			} else if (!paused && now - lastActivity > timeout) {
+				timedOut = true;
+
+				if (listener != null) {
+					listener.stateChanged("Download Failed", getProgress());
+				}
+
+				try {
+					connection.close();
+				} catch (Exception ignore) {
+					//Whatever state the connection is in, the copy loop will fail out on its own once it's closed
+				}
+			}
+		}
+	}
+}
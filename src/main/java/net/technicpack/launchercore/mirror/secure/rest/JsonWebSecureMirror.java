@@ -41,7 +41,7 @@ public class JsonWebSecureMirror implements ISecureMirror {
         String constructedUrl = baseUrl + "validate?a=" + req.getAccessToken() + "&c="+req.getClientToken();
 
         try {
-            return RestObject.getRestObject(ValidateResponse.class, constructedUrl);
+            return RestObject.getRestObject(ValidateResponse.class, constructedUrl, false);
         } catch (RestfulAPIException ex) {
             ex.printStackTrace();
             return new ValidateResponse(ex.getMessage());
@@ -0,0 +1,151 @@
+/*
+ * This file is part of Technic Launcher Core.
+ * Copyright (C) 2013 Syndicate, LLC
+ *
+ * Technic Launcher Core is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Technic Launcher Core is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * as well as a copy of the GNU Lesser General Public License,
+ * along with Technic Launcher Core.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.technicpack.launchercore.restful;
+
+import com.google.gson.JsonSyntaxException;
+import net.technicpack.launchercore.util.Utils;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+
+/**
+ * Keeps the last response body of each REST url on disk, along with the validators the server sent for it,
+ * so the next request can be made conditional.  When the server answers that nothing changed, the stored
+ * body is used, and the object parsed from it is kept in memory too so it doesn't have to be parsed again.
+ */
+public class RestCache {
+	private static RestCache instance;
+
+	private final File directory;
+	private final Map<String, Entry> entries = new HashMap<String, Entry>();
+	private final Map<String, RestObject> parsed = new HashMap<String, RestObject>();
+
+	private RestCache(File directory) {
+		this.directory = directory;
+	}
+
+	public static synchronized RestCache getInstance() {
+		if (instance == null) {
+			instance = new RestCache(new File(Utils.getCacheDirectory(), "rest"));
+		}
+		return instance;
+	}
+
+	private File getFile(String url) {
+		return new File(directory, DigestUtils.md5Hex(url) + ".json");
+	}
+
+	/**
+	 * @return The stored response for the url, or null if there isn't one
+	 */
+	public synchronized Entry get(String url) {
+		if (entries.containsKey(url)) {
+			return entries.get(url);
+		}
+
+		Entry entry = null;
+		File file = getFile(url);
+
+		if (file.exists()) {
+			try {
+				String json = FileUtils.readFileToString(file, Charset.forName("UTF-8"));
+				entry = Utils.getGson().fromJson(json, Entry.class);
+			} catch (JsonSyntaxException e) {
+				Utils.getLogger().log(Level.WARNING, "Unable to load cached response from " + file);
+			} catch (IOException e) {
+				Utils.getLogger().log(Level.WARNING, "Unable to load cached response from " + file);
+			}
+
+			//Two urls could share a file name, in which case this isn't the right response
+			if (entry != null && (entry.body == null || !url.equals(entry.url))) {
+				entry = null;
+			}
+		}
+
+		entries.put(url, entry);
+		return entry;
+	}
+
+	/**
+	 * @return The object last parsed from the url's stored response, if it is of the given type
+	 */
+	public synchronized <T extends RestObject> T getParsed(String url, Class<T> restObject) {
+		RestObject object = parsed.get(url);
+
+		if (restObject.isInstance(object)) {
+			return restObject.cast(object);
+		}
+
+		return null;
+	}
+
+	public synchronized void put(String url, String eTag, String lastModified, String body, RestObject object) {
+		Entry entry = new Entry(url, eTag, lastModified, body);
+		entries.put(url, entry);
+		parsed.put(url, object);
+
+		File file = getFile(url);
+		try {
+			FileUtils.writeStringToFile(file, Utils.getGson().toJson(entry), Charset.forName("UTF-8"));
+		} catch (IOException e) {
+			Utils.getLogger().log(Level.WARNING, "Unable to save cached response " + file);
+		}
+	}
+
+	public synchronized void putParsed(String url, RestObject object) {
+		parsed.put(url, object);
+	}
+
+	public static class Entry {
+		private String url;
+		private String eTag;
+		private String lastModified;
+		private String body;
+
+		public Entry() {
+
+		}
+
+		public Entry(String url, String eTag, String lastModified, String body) {
+			this.url = url;
+			this.eTag = eTag;
+			this.lastModified = lastModified;
+			this.body = body;
+		}
+
+		public String getETag() {
+			return eTag;
+		}
+
+		public String getLastModified() {
+			return lastModified;
+		}
+
+		public String getBody() {
+			return body;
+		}
+	}
+}
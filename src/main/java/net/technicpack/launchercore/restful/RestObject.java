@@ -22,6 +22,8 @@ package net.technicpack.launchercore.restful;
 import com.google.gson.Gson;
 import com.google.gson.JsonParseException;
 import net.technicpack.launchercore.exception.RestfulAPIException;
+import net.technicpack.launchercore.util.HttpClient;
+import net.technicpack.launchercore.util.SingleFlight;
 import org.apache.commons.io.IOUtils;
 
 import java.io.IOException;
@@ -30,6 +32,7 @@ import java.net.*;
 
 public class RestObject {
 	private static final Gson gson = new Gson();
+	private static final SingleFlight<RestObject, RestfulAPIException> inFlight = new SingleFlight<RestObject, RestfulAPIException>();
 
 	private String error;
 
@@ -43,8 +46,9 @@ public class RestObject {
 
     public static <T extends RestObject> T postRestObject(Class<T> restObject, String url) throws RestfulAPIException {
         InputStream stream = null;
+        HttpURLConnection conn = null;
         try {
-            HttpURLConnection conn = (HttpURLConnection)new URL(url).openConnection();
+            conn = HttpClient.open(new URL(url));
             conn.setRequestProperty("User-Agent", "Mozilla/5.0 (Macintosh; U; Intel Mac OS X 10.4; en-US; rv:1.9.2.2) Gecko/20100316 Firefox/3.6.2");
             conn.setRequestMethod("POST");
             conn.setRequestProperty("Content-Type",
@@ -52,7 +56,7 @@ public class RestObject {
             conn.setConnectTimeout(15000);
             conn.setReadTimeout(15000);
 
-            stream = conn.getInputStream();
+            stream = HttpClient.getBody(conn);
             String data = IOUtils.toString(stream);
             T result = gson.fromJson(data, restObject);
 
@@ -74,41 +78,118 @@ public class RestObject {
         } catch (IOException e) {
             throw new RestfulAPIException("Error accessing URL [" + url + "]", e);
         } finally {
-            IOUtils.closeQuietly(stream);
+            HttpClient.release(conn, stream);
         }
     }
 
 	public static <T extends RestObject> T getRestObject(Class<T> restObject, String url) throws RestfulAPIException {
+		return getRestObject(restObject, url, true);
+	}
+
+	/**
+	 * Gets an object from a REST url.  Cached responses are revalidated with the server instead of being
+	 * downloaded again, and are used as they are when the server can't be reached.
+	 *
+	 * @param useCache False for urls whose response shouldn't be kept, like ones carrying credentials
+	 */
+	public static <T extends RestObject> T getRestObject(final Class<T> restObject, final String url, final boolean useCache) throws RestfulAPIException {
+		//Callers asking for the same thing at the same time share one request
+		RestObject result = inFlight.execute(restObject.getName() + " " + url, new SingleFlight.Loader<RestObject, RestfulAPIException>() {
+			@Override
+			public RestObject load() throws RestfulAPIException {
+				return fetchRestObject(restObject, url, useCache);
+			}
+		});
+
+		return restObject.cast(result);
+	}
+
+	private static <T extends RestObject> T fetchRestObject(Class<T> restObject, String url, boolean useCache) throws RestfulAPIException {
+		RestCache cache = useCache ? RestCache.getInstance() : null;
+		RestCache.Entry cached = useCache ? cache.get(url) : null;
+
 		InputStream stream = null;
+		HttpURLConnection conn = null;
+		int status = -1;
 		try {
-			URLConnection conn = new URL(url).openConnection();
+			conn = HttpClient.open(new URL(url));
 			conn.setRequestProperty("User-Agent", "Mozilla/5.0 (Macintosh; U; Intel Mac OS X 10.4; en-US; rv:1.9.2.2) Gecko/20100316 Firefox/3.6.2");
 			conn.setConnectTimeout(15000);
 			conn.setReadTimeout(15000);
 
-			stream = conn.getInputStream();
-			String data = IOUtils.toString(stream);
-			T result = gson.fromJson(data, restObject);
+			if (cached != null) {
+				if (cached.getETag() != null)
+					conn.setRequestProperty("If-None-Match", cached.getETag());
+				if (cached.getLastModified() != null)
+					conn.setRequestProperty("If-Modified-Since", cached.getLastModified());
+			}
 
-			if (result == null ) {
-				throw new RestfulAPIException("Unable to access URL [" + url + "]");
+			status = conn.getResponseCode();
+
+			if (status == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+				return getCachedObject(restObject, url, cache, cached);
 			}
 
-			if (result.hasError()) {
-				throw new RestfulAPIException("Error in response: " + result.getError());
+			stream = HttpClient.getBody(conn);
+			String data = IOUtils.toString(stream);
+			T result = parse(restObject, url, data);
+
+			if (useCache) {
+				cache.put(url, conn.getHeaderField("ETag"), conn.getHeaderField("Last-Modified"), data, result);
 			}
 
 			return result;
 		} catch (SocketTimeoutException e) {
-			throw new RestfulAPIException("Timed out accessing URL [" + url + "]", e);
+			if (isCacheFallback(cached, status))
+				return getCachedObject(restObject, url, cache, cached);
+			throw new RestfulAPIException("Timed out accessing URL [" + url + "]", e, status);
 		}  catch (MalformedURLException e) {
 			throw new RestfulAPIException("Invalid URL [" + url + "]", e);
 		} catch (JsonParseException e) {
-			throw new RestfulAPIException("Error parsing response JSON at URL ["+url+"]",e);
+			throw new RestfulAPIException("Error parsing response JSON at URL ["+url+"]", e, status);
 		} catch (IOException e) {
-			throw new RestfulAPIException("Error accessing URL [" + url + "]", e);
+			if (isCacheFallback(cached, status))
+				return getCachedObject(restObject, url, cache, cached);
+			throw new RestfulAPIException("Error accessing URL [" + url + "]", e, status);
 		} finally {
-			IOUtils.closeQuietly(stream);
+			HttpClient.release(conn, stream);
 		}
 	}
+
+	/**
+	 * The cached copy stands in when the server couldn't be reached or failed on its end, but not when it
+	 * answered that the request itself was wrong.
+	 */
+	private static boolean isCacheFallback(RestCache.Entry cached, int status) {
+		return cached != null && (status == -1 || status >= 500);
+	}
+
+	private static <T extends RestObject> T getCachedObject(Class<T> restObject, String url, RestCache cache, RestCache.Entry cached) throws RestfulAPIException {
+		T result = cache.getParsed(url, restObject);
+
+		if (result == null) {
+			try {
+				result = parse(restObject, url, cached.getBody());
+			} catch (JsonParseException e) {
+				throw new RestfulAPIException("Error parsing cached response JSON for URL ["+url+"]",e);
+			}
+			cache.putParsed(url, result);
+		}
+
+		return result;
+	}
+
+	private static <T extends RestObject> T parse(Class<T> restObject, String url, String data) throws RestfulAPIException {
+		T result = gson.fromJson(data, restObject);
+
+		if (result == null ) {
+			throw new RestfulAPIException("Unable to access URL [" + url + "]");
+		}
+
+		if (result.hasError()) {
+			throw new RestfulAPIException("Error in response: " + result.getError());
+		}
+
+		return result;
+	}
 }
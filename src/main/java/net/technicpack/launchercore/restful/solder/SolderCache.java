@@ -0,0 +1,88 @@
+/*
+ * This file is part of Technic Launcher Core.
+ * Copyright (C) 2013 Syndicate, LLC
+ *
+ * Technic Launcher Core is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Technic Launcher Core is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * as well as a copy of the GNU Lesser General Public License,
+ * along with Technic Launcher Core.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.technicpack.launchercore.restful.solder;
+
+import net.technicpack.launchercore.exception.RestfulAPIException;
+import net.technicpack.launchercore.restful.RestObject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the root object of each Solder for a while, since every pack on a Solder needs it and it's the
+ * same for all of them.  A pack list refresh or an install only asks a Solder for it once, until the
+ * entry expires or is invalidated.
+ */
+public class SolderCache {
+	private static final long TTL_MILLIS = 30 * 60 * 1000;
+	private static final SolderCache instance = new SolderCache();
+
+	private final Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+	private SolderCache() {
+
+	}
+
+	public static SolderCache getInstance() {
+		return instance;
+	}
+
+	/**
+	 * @param solderUrl The Solder's API url, such as http://solder.example.com/api/
+	 */
+	public Solder getSolder(String solderUrl) throws RestfulAPIException {
+		Entry entry = entries.get(solderUrl);
+		if (entry != null && !entry.isExpired()) {
+			return entry.solder;
+		}
+
+		Solder solder = RestObject.getRestObject(Solder.class, solderUrl + "modpack/");
+		solder.setUrl(solderUrl);
+		entries.put(solderUrl, new Entry(solder));
+		return solder;
+	}
+
+	/**
+	 * Drops a Solder's root object, so the next pack that needs it fetches it again.
+	 */
+	public void invalidate(String solderUrl) {
+		if (solderUrl != null) {
+			entries.remove(solderUrl);
+		}
+	}
+
+	public void invalidateAll() {
+		entries.clear();
+	}
+
+	private static class Entry {
+		private final Solder solder;
+		private final long fetched;
+
+		public Entry(Solder solder) {
+			this.solder = solder;
+			this.fetched = System.currentTimeMillis();
+		}
+
+		public boolean isExpired() {
+			return System.currentTimeMillis() - fetched > TTL_MILLIS;
+		}
+	}
+}
@@ -26,8 +26,10 @@ import net.technicpack.launchercore.restful.Modpack;
 import net.technicpack.launchercore.restful.PackInfo;
 import net.technicpack.launchercore.restful.Resource;
 import net.technicpack.launchercore.restful.RestObject;
+import net.technicpack.launchercore.util.Utils;
 
 import java.util.List;
+import java.util.logging.Level;
 
 public class SolderPackInfo extends RestObject implements PackInfo {
 
@@ -119,6 +121,8 @@ public class SolderPackInfo extends RestObject implements PackInfo {
 
 	@Override
 	public Modpack getModpack(String build, User user) throws BuildInaccessibleException {
+		refreshSolder();
+
 		try {
 			Modpack pack = RestObject.getRestObject(Modpack.class, SolderConstants.getSolderBuildUrl(solder.getUrl(), name, build, user.getProfile().getName()));
 
@@ -126,12 +130,31 @@ public class SolderPackInfo extends RestObject implements PackInfo {
 				return pack;
 			}
 		} catch (RestfulAPIException e) {
+			//When the Solder itself is unreachable or failing, what we knew about it may be out of date.  An
+			//error about this build or this user says nothing about the Solder, so the root object is kept.
+			int responseCode = e.getResponseCode();
+			if (responseCode == -1 || responseCode >= 500) {
+				SolderCache.getInstance().invalidate(solder.getUrl());
+			}
 			throw new BuildInaccessibleException(display_name, build, e);
 		}
 
 		throw new BuildInaccessibleException(display_name, build);
 	}
 
+	/**
+	 * Picks up the Solder's current root object, in case the one this info was loaded with has since been
+	 * invalidated or expired.
+	 */
+	private void refreshSolder() {
+		try {
+			solder = SolderCache.getInstance().getSolder(solder.getUrl());
+		} catch (RestfulAPIException e) {
+			//Builds are fetched by the Solder's address alone, which the old root object still has
+			Utils.getLogger().log(Level.INFO, "Unable to refresh Solder " + solder.getUrl(), e);
+		}
+	}
+
 	@Override
 	public String toString() {
 		return "SolderPackInfo{" +
@@ -154,19 +177,13 @@ public class SolderPackInfo extends RestObject implements PackInfo {
 			return null;
 		}
 		String solderUrl = url.substring(0, url.length() - info.getName().length() - 1);
-		Solder solder = RestObject.getRestObject(Solder.class, solderUrl);
-		if (solder != null) {
-			solder.setUrl(solderUrl.replace("modpack/", ""));
-			info.setSolder(solder);
-		}
+		info.setSolder(SolderCache.getInstance().getSolder(solderUrl.replace("modpack/", "")));
 		return info;
 	}
 
 	public static SolderPackInfo getSolderPackInfo(String solderUrl, String name, User user) throws RestfulAPIException {
 		SolderPackInfo info = getRestObject(SolderPackInfo.class, SolderConstants.getSolderPackInfoUrl(solderUrl, name, user.getProfile().getName()));
-		Solder solder = RestObject.getRestObject(Solder.class, solderUrl + "modpack/");
-		solder.setUrl(solderUrl);
-		info.setSolder(solder);
+		info.setSolder(SolderCache.getInstance().getSolder(solderUrl));
 		return info;
 	}
 }
@@ -0,0 +1,165 @@
+/*
+ * This file is part of Technic Launcher Core.
+ * Copyright (C) 2013 Syndicate, LLC
+ *
+ * Technic Launcher Core is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Technic Launcher Core is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * as well as a copy of the GNU Lesser General Public License,
+ * along with Technic Launcher Core.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.technicpack.launchercore.util;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+/**
+ * Remembers the md5 of files we have already hashed, along with the size and modification time they had
+ * at the time.  As long as neither has changed, the stored digest is returned instead of reading the
+ * whole file again.
+ */
+public class DigestIndex {
+	//Files modified this recently may still change within the timestamp's resolution, so they aren't indexed
+	private static final long RACY_MILLIS = 2000;
+	private static DigestIndex instance;
+
+	private final File indexFile;
+	private final Map<String, Entry> entries;
+	private volatile boolean dirty = false;
+
+	private DigestIndex(File indexFile, Map<String, Entry> entries) {
+		this.indexFile = indexFile;
+		this.entries = entries;
+	}
+
+	public static synchronized DigestIndex getInstance() {
+		if (instance == null) {
+			instance = load(new File(Utils.getCacheDirectory(), "digests.json"));
+
+			final DigestIndex index = instance;
+			Runtime.getRuntime().addShutdownHook(new Thread("Digest Index Save Thread") {
+				@Override
+				public void run() {
+					index.save();
+				}
+			});
+		}
+		return instance;
+	}
+
+	private static DigestIndex load(File indexFile) {
+		Map<String, Entry> entries = null;
+
+		if (indexFile.exists()) {
+			try {
+				String json = FileUtils.readFileToString(indexFile, Charset.forName("UTF-8"));
+				entries = Utils.getGson().fromJson(json, new TypeToken<ConcurrentHashMap<String, Entry>>() {}.getType());
+			} catch (JsonSyntaxException e) {
+				Utils.getLogger().log(Level.WARNING, "Unable to load digest index from " + indexFile);
+			} catch (IOException e) {
+				Utils.getLogger().log(Level.WARNING, "Unable to load digest index from " + indexFile);
+			}
+		}
+
+		if (entries == null) {
+			entries = new ConcurrentHashMap<String, Entry>();
+		}
+
+		return new DigestIndex(indexFile, entries);
+	}
+
+	public void save() {
+		if (!dirty) {
+			return;
+		}
+
+		dirty = false;
+		String json = Utils.getGson().toJson(entries);
+
+		try {
+			FileUtils.writeStringToFile(indexFile, json, Charset.forName("UTF-8"));
+		} catch (IOException e) {
+			dirty = true;
+			Utils.getLogger().log(Level.WARNING, "Unable to save digest index " + indexFile);
+		}
+	}
+
+	/**
+	 * Gets the md5 of a file, only reading the file if it changed since it was last hashed.
+	 *
+	 * @return The md5 hash, or null if the file couldn't be read
+	 */
+	public String getMD5(File file) {
+		String path = file.getAbsolutePath();
+		long size = file.length();
+		long modified = file.lastModified();
+
+		Entry entry = entries.get(path);
+		if (entry != null && entry.matches(size, modified)) {
+			return entry.md5;
+		}
+
+		String md5 = MD5Utils.getMD5(file);
+
+		if (md5 == null) {
+			if (entries.remove(path) != null) {
+				dirty = true;
+			}
+		} else {
+			record(file, size, modified, md5);
+		}
+
+		return md5;
+	}
+
+	private void record(File file, long size, long modified, String md5) {
+		String path = file.getAbsolutePath();
+
+		if (modified == 0 || System.currentTimeMillis() - modified < RACY_MILLIS) {
+			if (entries.remove(path) != null) {
+				dirty = true;
+			}
+			return;
+		}
+
+		entries.put(path, new Entry(size, modified, md5.toLowerCase()));
+		dirty = true;
+	}
+
+	private static class Entry {
+		private long size;
+		private long modified;
+		private String md5;
+
+		public Entry() {
+
+		}
+
+		public Entry(long size, long modified, String md5) {
+			this.size = size;
+			this.modified = modified;
+			this.md5 = md5;
+		}
+
+		public boolean matches(long size, long modified) {
+			return this.size == size && this.modified == modified && this.md5 != null;
+		}
+	}
+}
@@ -0,0 +1,337 @@
+/*
+ * This file is part of Technic Launcher Core.
+ * Copyright (C) 2013 Syndicate, LLC
+ *
+ * Technic Launcher Core is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Technic Launcher Core is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * as well as a copy of the GNU Lesser General Public License,
+ * along with Technic Launcher Core.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.technicpack.launchercore.util;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.NoRouteToHostException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.UnknownHostException;
+import java.util.logging.Level;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The one place HTTP connections are opened and given back.  The JDK keeps a pool of idle persistent
+ * connections per host, but a connection only goes back into it once its response body has been read to
+ * the end and closed.  Every request should therefore end with {@link #release}, which reads out whatever
+ * is left of a small body so its connection can be reused, and drops the connection instead when there's
+ * too much left to be worth reading.
+ * <p>
+ * Responses may come back gzip or deflate encoded, so bodies should be opened with {@link #getBody}, which
+ * decodes them, and sized with {@link #getContentLength}, which knows the encoded length isn't the real one.
+ */
+public class HttpClient {
+	public static final String USER_AGENT = "Mozilla/5.0 (Windows NT 6.1; WOW64) AppleWebKit/535.19 (KHTML, like Gecko) Chrome/18.0.1025.162 Safari/535.19";
+	private static final int DEFAULT_MAX_CONNECTIONS = 8;
+	private static final int DEFAULT_TIMEOUT = 15000;
+	//Probes only ask whether something is there, so a server that can't be reached is given up on sooner
+	private static final int PROBE_CONNECT_TIMEOUT = 10000;
+	private static final int DEFAULT_MAX_DRAIN_BYTES = 64 * 1024;
+	private static final String ACCEPT_ENCODING = "gzip, deflate";
+
+	private static volatile int timeout = DEFAULT_TIMEOUT;
+	private static volatile int maxDrainBytes = DEFAULT_MAX_DRAIN_BYTES;
+
+	static {
+		System.setProperty("http.agent", USER_AGENT);
+		System.setProperty("http.keepAlive", "true");
+
+		//The JDK only allows 5 idle connections per host by default, fewer than the downloads we run at once
+		if (System.getProperty("http.maxConnections") == null) {
+			System.setProperty("http.maxConnections", Integer.toString(DEFAULT_MAX_CONNECTIONS));
+		}
+
+		HttpURLConnection.setFollowRedirects(true);
+	}
+
+	/**
+	 * Sets how many idle connections are kept open per host.  The JDK reads this once, when the first
+	 * connection is made, so it has to be called before any requests go out.
+	 */
+	public static void setMaxConnectionsPerHost(int maxConnections) {
+		System.setProperty("http.maxConnections", Integer.toString(maxConnections));
+	}
+
+	/**
+	 * Sets the connect and read timeout given to connections opened from now on.
+	 */
+	public static void setTimeout(int timeoutMillis) {
+		timeout = timeoutMillis;
+	}
+
+	/**
+	 * Sets how much of an unread response body is read out to keep its connection, rather than dropping it.
+	 */
+	public static void setMaxDrainBytes(int bytes) {
+		maxDrainBytes = bytes;
+	}
+
+	/**
+	 * Opens a connection set up for the launcher: our user agent, redirects followed, no caching, and
+	 * compressed responses accepted.
+	 */
+	public static HttpURLConnection open(URL url) throws IOException {
+		HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+		conn.setDoInput(true);
+		conn.setDoOutput(false);
+		conn.setRequestProperty("User-Agent", USER_AGENT);
+		conn.setUseCaches(false);
+		conn.setInstanceFollowRedirects(true);
+		conn.setConnectTimeout(timeout);
+		conn.setReadTimeout(timeout);
+		conn.setRequestProperty("Accept-Encoding", ACCEPT_ENCODING);
+		return conn;
+	}
+
+	/**
+	 * Asks for part of a response.  Ranges count bytes of the body as it is sent, so the body is asked for
+	 * unencoded, otherwise the range would point into the compressed stream.
+	 *
+	 * @param range The byte range, in the form "start-end" or "start-"
+	 */
+	public static void requestRange(HttpURLConnection conn, String range) {
+		conn.setRequestProperty("Accept-Encoding", "identity");
+		conn.setRequestProperty("Range", "bytes=" + range);
+	}
+
+	/**
+	 * @return Whether the response body was sent compressed
+	 */
+	public static boolean isEncoded(URLConnection conn) {
+		String encoding = conn.getContentEncoding();
+		return encoding != null && !encoding.trim().isEmpty() && !encoding.trim().equalsIgnoreCase("identity");
+	}
+
+	/**
+	 * @return The length of the response body once it has been decoded, or -1 if it isn't known ahead of time.
+	 *         The Content-Length of a compressed response only counts the compressed bytes.
+	 */
+	public static long getContentLength(URLConnection conn) {
+		if (isEncoded(conn)) {
+			return -1;
+		}
+
+		return parseLength(conn.getHeaderField("Content-Length"));
+	}
+
+	/**
+	 * Opens the response body, decoded if it was sent compressed.
+	 */
+	public static InputStream getBody(URLConnection conn) throws IOException {
+		return decode(conn, conn.getInputStream());
+	}
+
+	/**
+	 * Wraps a response body that was opened elsewhere so that it reads decoded.
+	 */
+	public static InputStream decode(URLConnection conn, InputStream body) throws IOException {
+		String encoding = conn.getContentEncoding();
+		if (encoding == null) {
+			return body;
+		}
+
+		encoding = encoding.trim().toLowerCase();
+		if (encoding.equals("gzip") || encoding.equals("x-gzip")) {
+			return new GZIPInputStream(body);
+		} else if (encoding.equals("deflate")) {
+			return decodeDeflate(body);
+		} else if (encoding.isEmpty() || encoding.equals("identity")) {
+			return body;
+		}
+
+		throw new IOException("Unsupported content encoding " + encoding + " from " + conn.getURL());
+	}
+
+	/**
+	 * Deflate is meant to come in a zlib wrapper, but some servers send the raw stream, so the first two
+	 * bytes are checked for a zlib header before picking which one to read.
+	 */
+	private static InputStream decodeDeflate(InputStream body) throws IOException {
+		PushbackInputStream stream = new PushbackInputStream(body, 2);
+		int first = stream.read();
+		int second = (first == -1) ? -1 : stream.read();
+
+		if (second != -1) {
+			stream.unread(second);
+		}
+		if (first != -1) {
+			stream.unread(first);
+		}
+
+		boolean zlib = (first != -1 && second != -1 && (first & 0x0F) == 8 && ((first << 8) | second) % 31 == 0);
+		return new InflaterInputStream(stream, new Inflater(!zlib));
+	}
+
+	/**
+	 * Asks the server about a url without downloading it.  A HEAD request is tried first, and servers that
+	 * won't answer one are asked for just the first byte instead.  A server that can't be reached at all
+	 * isn't asked a second time.
+	 */
+	public static HttpMetadata probe(URL url) throws IOException {
+		HttpURLConnection conn = open(url);
+		conn.setConnectTimeout(PROBE_CONNECT_TIMEOUT);
+		boolean connected = false;
+
+		try {
+			conn.setRequestMethod("HEAD");
+			//Otherwise the length reported would be that of the compressed body
+			conn.setRequestProperty("Accept-Encoding", "identity");
+			conn.connect();
+			connected = true;
+			int status = conn.getResponseCode();
+
+			if (status != HttpURLConnection.HTTP_BAD_METHOD && status != HttpURLConnection.HTTP_NOT_IMPLEMENTED) {
+				String acceptRanges = conn.getHeaderField("Accept-Ranges");
+				return new HttpMetadata(status, conn.getHeaderField("ETag"), getContentLength(conn),
+						conn.getHeaderField("Last-Modified"), acceptRanges != null && acceptRanges.toLowerCase().contains("bytes"));
+			}
+		} catch (IOException ex) {
+			if (!connected || isUnreachable(ex)) {
+				throw ex;
+			}
+			Utils.getLogger().log(Level.FINE, "HEAD request to " + url + " failed, trying a ranged GET instead.", ex);
+		} finally {
+			//Reading the body of a connection that never connected would only try to connect again
+			if (connected) {
+				release(conn, null);
+			} else {
+				conn.disconnect();
+			}
+		}
+
+		conn = open(url);
+		conn.setConnectTimeout(PROBE_CONNECT_TIMEOUT);
+		try {
+			requestRange(conn, "0-0");
+			int status = conn.getResponseCode();
+			long length = getContentLength(conn);
+			boolean partial = (status == HttpURLConnection.HTTP_PARTIAL);
+
+			if (partial) {
+				//Content-Range: bytes 0-0/<total>
+				String contentRange = conn.getHeaderField("Content-Range");
+				int slash = (contentRange == null) ? -1 : contentRange.lastIndexOf('/');
+				length = (slash == -1) ? -1 : parseLength(contentRange.substring(slash + 1));
+				status = HttpURLConnection.HTTP_OK;
+			}
+
+			return new HttpMetadata(status, conn.getHeaderField("ETag"), length, conn.getHeaderField("Last-Modified"), partial);
+		} finally {
+			//A server that ignored the range is sending the whole file, which release won't wait around for
+			release(conn, null);
+		}
+	}
+
+	/**
+	 * A redirect can still send a connected request on to a host that can't be reached, which a GET would
+	 * fail on just the same.
+	 */
+	private static boolean isUnreachable(IOException ex) {
+		return ex instanceof UnknownHostException || ex instanceof ConnectException || ex instanceof NoRouteToHostException;
+	}
+
+	private static long parseLength(String value) {
+		if (value == null) {
+			return -1;
+		}
+
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException ex) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Reads a whole response body as a string and releases the connection.
+	 */
+	public static String readString(HttpURLConnection conn) throws IOException {
+		InputStream stream = null;
+		try {
+			stream = getBody(conn);
+			return IOUtils.toString(stream, "UTF-8");
+		} finally {
+			release(conn, stream);
+		}
+	}
+
+	/**
+	 * Finishes with a connection.  Whatever is left of the response body is read out so the connection can
+	 * go back to the pool, unless more than a little is left, in which case the connection is closed.
+	 *
+	 * @param conn The connection
+	 * @param body The response body stream, if it was opened.  If it is null, the body or error body is
+	 *             opened here so it can be drained.
+	 */
+	public static void release(HttpURLConnection conn, InputStream body) {
+		if (conn == null) {
+			return;
+		}
+
+		try {
+			if (body == null) {
+				body = getAnyBody(conn);
+			}
+
+			if (body != null && !drain(body, maxDrainBytes)) {
+				conn.disconnect();
+			}
+		} catch (IOException ex) {
+			conn.disconnect();
+		} finally {
+			IOUtils.closeQuietly(body);
+		}
+	}
+
+	private static InputStream getAnyBody(HttpURLConnection conn) throws IOException {
+		try {
+			return conn.getInputStream();
+		} catch (IOException ex) {
+			//Error responses carry their body here instead, and it has to be read just the same
+			return conn.getErrorStream();
+		}
+	}
+
+	/**
+	 * @return Whether the end of the stream was reached within the limit
+	 */
+	private static boolean drain(InputStream stream, int limit) throws IOException {
+		byte[] buffer = new byte[4096];
+		int drained = 0;
+
+		while (drained <= limit) {
+			int read = stream.read(buffer);
+			if (read == -1) {
+				return true;
+			}
+			drained += read;
+		}
+
+		return false;
+	}
+}
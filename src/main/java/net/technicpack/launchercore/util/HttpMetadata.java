@@ -0,0 +1,70 @@
+/*
+ * This file is part of Technic Launcher Core.
+ * Copyright (C) 2013 Syndicate, LLC
+ *
+ * Technic Launcher Core is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Technic Launcher Core is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * as well as a copy of the GNU Lesser General Public License,
+ * along with Technic Launcher Core.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.technicpack.launchercore.util;
+
+/**
+ * What a server says about a url without sending its contents: the response status and the headers that
+ * describe the file.
+ */
+public class HttpMetadata {
+	private final int status;
+	private final String eTag;
+	private final long contentLength;
+	private final String lastModified;
+	private final boolean acceptsRanges;
+
+	public HttpMetadata(int status, String eTag, long contentLength, String lastModified, boolean acceptsRanges) {
+		this.status = status;
+		this.eTag = eTag;
+		this.contentLength = contentLength;
+		this.lastModified = lastModified;
+		this.acceptsRanges = acceptsRanges;
+	}
+
+	public int getStatus() {
+		return status;
+	}
+
+	public boolean isSuccess() {
+		return status / 100 == 2;
+	}
+
+	/**
+	 * @return The ETag header as sent, quotes and all, or null if there wasn't one
+	 */
+	public String getETag() {
+		return eTag;
+	}
+
+	/**
+	 * @return The size of the whole file, or -1 if the server didn't say
+	 */
+	public long getContentLength() {
+		return contentLength;
+	}
+
+	public String getLastModified() {
+		return lastModified;
+	}
+
+	public boolean acceptsRanges() {
+		return acceptsRanges;
+	}
+}
@@ -0,0 +1,181 @@
+/*
+ * This file is part of Technic Launcher Core.
+ * Copyright (C) 2013 Syndicate, LLC
+ *
+ * Technic Launcher Core is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Technic Launcher Core is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * as well as a copy of the GNU Lesser General Public License,
+ * along with Technic Launcher Core.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.technicpack.launchercore.util;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.logging.Level;
+
+/**
+ * Runs background requests on a small fixed set of threads.  Waiting requests are started in priority
+ * order, lowest value first and in the order they were submitted within a priority, but never more than
+ * a few at once against the same host, so a long list of packs doesn't turn into a flood of connections
+ * to one server.
+ */
+public class RequestScheduler {
+	private static final int THREADS = 6;
+	private static final int MAX_PER_HOST = 3;
+	private static RequestScheduler instance;
+
+	private final Object lock = new Object();
+	private final TreeSet<Request> pending = new TreeSet<Request>();
+	private final Map<String, Integer> running = new HashMap<String, Integer>();
+	private final int maxPerHost;
+	private long sequence = 0;
+
+	public RequestScheduler(String name, int threads, int maxPerHost) {
+		this.maxPerHost = maxPerHost;
+
+		for (int i = 0; i < threads; i++) {
+			Thread worker = new Thread(name + " " + (i + 1)) {
+				@Override
+				public void run() {
+					work();
+				}
+			};
+			worker.setDaemon(true);
+			worker.start();
+		}
+	}
+
+	public static synchronized RequestScheduler getInstance() {
+		if (instance == null) {
+			instance = new RequestScheduler("Request Thread", THREADS, MAX_PER_HOST);
+		}
+		return instance;
+	}
+
+	/**
+	 * @return The host of a url, used to group requests against the same server
+	 */
+	public static String getHost(String url) {
+		try {
+			return new URL(url).getHost().toLowerCase();
+		} catch (MalformedURLException ex) {
+			return "";
+		}
+	}
+
+	/**
+	 * Queues a request.
+	 *
+	 * @param host     The host the request goes to, as returned by {@link #getHost}
+	 * @param priority Requests with a lower value are started first
+	 * @param request  The request to run
+	 */
+	public void submit(String host, int priority, Runnable request) {
+		synchronized (lock) {
+			pending.add(new Request(host, priority, sequence++, request));
+			lock.notify();
+		}
+	}
+
+	private void work() {
+		while (true) {
+			Request request;
+
+			try {
+				request = take();
+			} catch (InterruptedException ex) {
+				return;
+			}
+
+			try {
+				request.runnable.run();
+			} catch (Throwable t) {
+				//One broken request mustn't take a worker down with it
+				Utils.getLogger().log(Level.WARNING, "Background request failed.", t);
+			} finally {
+				finish(request);
+			}
+		}
+	}
+
+	private Request take() throws InterruptedException {
+		synchronized (lock) {
+			while (true) {
+				Iterator<Request> iterator = pending.iterator();
+				while (iterator.hasNext()) {
+					Request request = iterator.next();
+					int count = getRunning(request.host);
+
+					if (count < maxPerHost) {
+						iterator.remove();
+						running.put(request.host, count + 1);
+						return request;
+					}
+				}
+
+				lock.wait();
+			}
+		}
+	}
+
+	private void finish(Request request) {
+		synchronized (lock) {
+			int count = getRunning(request.host) - 1;
+
+			if (count > 0) {
+				running.put(request.host, count);
+			} else {
+				running.remove(request.host);
+			}
+
+			//A request that was held back for this host may be able to start now
+			lock.notifyAll();
+		}
+	}
+
+	private int getRunning(String host) {
+		Integer count = running.get(host);
+		return (count == null) ? 0 : count;
+	}
+
+	private static class Request implements Comparable<Request> {
+		private final String host;
+		private final int priority;
+		private final long sequence;
+		private final Runnable runnable;
+
+		public Request(String host, int priority, long sequence, Runnable runnable) {
+			this.host = host;
+			this.priority = priority;
+			this.sequence = sequence;
+			this.runnable = runnable;
+		}
+
+		@Override
+		public int compareTo(Request other) {
+			if (priority != other.priority) {
+				return (priority < other.priority) ? -1 : 1;
+			}
+
+			if (sequence != other.sequence) {
+				return (sequence < other.sequence) ? -1 : 1;
+			}
+
+			return 0;
+		}
+	}
+}
@@ -40,6 +40,7 @@ public class Settings {
 	private boolean migrate;
 	private String clientId = UUID.randomUUID().toString();
 	private String migrateDir;
+	private int downloadRateLimit;
 
 	public static void load() {
 		File settings = new File(Utils.getSettingsDirectory(), "settings.json");
@@ -146,6 +147,18 @@ public class Settings {
 		save();
 	}
 
+	/**
+	 * @return The most all downloads together may use, in KB/s, or 0 for no limit
+	 */
+	public static int getDownloadRateLimit() {
+		return instance.downloadRateLimit;
+	}
+
+	public static void setDownloadRateLimit(int downloadRateLimit) {
+		instance.downloadRateLimit = Math.max(0, downloadRateLimit);
+		save();
+	}
+
 	@Override
 	public String toString() {
 		return "Settings{" +
@@ -157,6 +170,7 @@ public class Settings {
 				", migrateDir='" + migrateDir + '\'' +
 				", launchAction='" + launchAction +'\'' +
 				", languageCode='" + languageCode + '\'' +
+				", downloadRateLimit=" + downloadRateLimit +
 				'}';
 	}
 }
@@ -0,0 +1,101 @@
+/*
+ * This file is part of Technic Launcher Core.
+ * Copyright (C) 2013 Syndicate, LLC
+ *
+ * Technic Launcher Core is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Technic Launcher Core is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * as well as a copy of the GNU Lesser General Public License,
+ * along with Technic Launcher Core.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.technicpack.launchercore.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Makes sure only one call per key is in flight at a time.  Callers that ask for a key while a call for it
+ * is already running wait for that call and get its result, or its exception, instead of making the same
+ * request again.  Nothing is kept once a call finishes; the next caller after that starts a fresh one.
+ */
+public class SingleFlight<V, E extends Exception> {
+	private final ConcurrentMap<String, Call<V>> calls = new ConcurrentHashMap<String, Call<V>>();
+
+	public interface Loader<V, E extends Exception> {
+		V load() throws E;
+	}
+
+	/**
+	 * Runs the loader, unless a call for the same key is already running, in which case that call's outcome
+	 * is waited for and shared.
+	 */
+	public V execute(String key, Loader<V, E> loader) throws E {
+		Call<V> call = new Call<V>();
+		Call<V> existing = calls.putIfAbsent(key, call);
+
+		if (existing != null) {
+			return await(existing);
+		}
+
+		try {
+			call.result = loader.load();
+		} catch (Exception ex) {
+			call.exception = ex;
+		} catch (Error error) {
+			call.error = error;
+		} finally {
+			calls.remove(key, call);
+			call.done.countDown();
+		}
+
+		return await(call);
+	}
+
+	@SuppressWarnings("unchecked")
+	private V await(Call<V> call) throws E {
+		boolean interrupted = false;
+
+		while (true) {
+			try {
+				call.done.await();
+				break;
+			} catch (InterruptedException ex) {
+				//Giving up here would leave the caller with nothing, the call itself is still running
+				interrupted = true;
+			}
+		}
+
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+
+		if (call.error != null) {
+			throw call.error;
+		}
+		if (call.exception instanceof RuntimeException) {
+			throw (RuntimeException) call.exception;
+		}
+		if (call.exception != null) {
+			throw (E) call.exception;
+		}
+
+		return call.result;
+	}
+
+	private static class Call<V> {
+		private final CountDownLatch done = new CountDownLatch(1);
+		private volatile V result;
+		private volatile Exception exception;
+		private volatile Error error;
+	}
+}
@@ -21,14 +21,10 @@ package net.technicpack.launchercore.util;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import net.technicpack.launchercore.mirror.MirrorStore;
-import org.apache.commons.io.IOUtils;
 
-import java.io.BufferedReader;
 import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.Date;
@@ -92,52 +88,50 @@ public class Utils {
 	 * @throws IOException The openConnection() method throws an IOException and the calling method is responsible for handling it.
 	 */
 	public static HttpURLConnection openHttpConnection(URL url) throws IOException {
-		HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-		conn.setDoInput(true);
-		conn.setDoOutput(false);
-		System.setProperty("http.agent", "Mozilla/5.0 (Windows NT 6.1; WOW64) AppleWebKit/535.19 (KHTML, like Gecko) Chrome/18.0.1025.162 Safari/535.19");
-		conn.setRequestProperty("User-Agent", "Mozilla/5.0 (Windows NT 6.1; WOW64) AppleWebKit/535.19 (KHTML, like Gecko) Chrome/18.0.1025.162 Safari/535.19");
-		HttpURLConnection.setFollowRedirects(true);
-		conn.setUseCaches(false);
-		conn.setInstanceFollowRedirects(true);
-		return conn;
+		return HttpClient.open(url);
 	}
 
 	/**
-	 * Opens an HTTP connection to a web URL and tests that the response is a valid 200-level code
-	 * and we can successfully open a stream to the content.
+	 * Asks a web URL for its headers and tests that the response is a valid 200-level code, without
+	 * downloading the content.
 	 *
 	 * @param urlLoc The HTTP URL indicating the location of the content.
 	 * @return True if the content can be accessed successfully, false otherwise.
 	 */
 	public static boolean pingHttpURL(String urlLoc, MirrorStore mirrorStore) {
-		InputStream stream = null;
 		try {
-			final URL url = mirrorStore.getFullUrl(urlLoc);
-			final HttpURLConnection conn = openHttpConnection(url);
+			return HttpClient.probe(mirrorStore.getFullUrl(urlLoc)).isSuccess();
+		} catch (IOException e) {
+			return false;
+		}
+	}
+	
+	/**
+	 * Sends a GET to a web URL that counts hits, like the download and run counters.  Unlike
+	 * {@link #pingHttpURL}, this always makes a full GET request, since a HEAD may not be counted.
+	 *
+	 * @param urlLoc The HTTP URL to hit.
+	 * @return True if the server answered with a 200-level code, false otherwise.
+	 */
+	public static boolean sendHit(String urlLoc, MirrorStore mirrorStore) {
+		HttpURLConnection conn = null;
+		try {
+			conn = HttpClient.open(mirrorStore.getFullUrl(urlLoc));
 			conn.setConnectTimeout(10000);
-
-			int responseCode = conn.getResponseCode();
-			int responseFamily = responseCode / 100;
-
-			if (responseFamily == 2) {
-				stream = conn.getInputStream();
-				return true;
-			} else {
-				return false;
-			}
+			return conn.getResponseCode() / 100 == 2;
 		} catch (IOException e) {
 			return false;
 		} finally {
-			IOUtils.closeQuietly(stream);
+			HttpClient.release(conn, null);
 		}
 	}
-	
+
 	public static boolean sendTracking(String category, String action, String label) {
 		String url = "http://www.google-analytics.com/collect";
+		HttpURLConnection con = null;
 		try {
 			URL urlObj = new URL(url);
-			HttpURLConnection con = (HttpURLConnection) urlObj.openConnection();
+			con = HttpClient.open(urlObj);
 			con.setRequestMethod("POST");
 			
 			String urlParameters = "v=1&tid=UA-30896795-3&cid=" + Settings.getClientId() + "&t=event&ec=" + category + "&ea=" + action + "&el=" + label;
@@ -151,19 +145,10 @@ public class Utils {
 			int responseCode = con.getResponseCode();
 			System.out.println("Analytics Response [" + category + "]: " + responseCode);
 	 
-			BufferedReader in = new BufferedReader(
-			        new InputStreamReader(con.getInputStream()));
-			String inputLine;
-			StringBuffer response = new StringBuffer();
-	 
-			while ((inputLine = in.readLine()) != null) {
-				response.append(inputLine);
-			}
-			in.close();
-			
-			
+			HttpClient.readString(con);
 			return true;
 		} catch (IOException e) {
+			HttpClient.release(con, null);
 			return false;
 		}
 	}
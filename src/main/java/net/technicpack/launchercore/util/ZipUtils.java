@@ -22,13 +22,26 @@ package net.technicpack.launchercore.util;
 import net.technicpack.launchercore.minecraft.ExtractRules;
 import org.apache.commons.io.IOUtils;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.JarOutputStream;
@@ -38,6 +51,20 @@ import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
 
 public class ZipUtils {
+	private static final int EXTRACT_BUFFER_SIZE = 64 * 1024;
+	private static final int EXTRACT_THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+	//Below this many files, starting threads and opening more handles on the zip costs more than it saves
+	private static final int MIN_PARALLEL_ENTRIES = 16;
+	private static final long PROGRESS_INTERVAL = 100;
+
+	private static final ExecutorService extractPool = Executors.newCachedThreadPool(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "Unzip Worker Thread");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
 
 	public static boolean checkLaunchDirectory(File dir) {
 		if (!dir.isDirectory()) {
@@ -86,7 +113,7 @@ public class ZipUtils {
 				outputFile.getParentFile().mkdirs();
 			}
 
-			unzipEntry(zipFile, zipFile.getEntry(fileName), outputFile);
+			unzipEntry(zipFile, zipFile.getEntry(fileName), outputFile, new byte[EXTRACT_BUFFER_SIZE]);
 			return true;
 		} catch (IOException e) {
 			Utils.getLogger().log(Level.WARNING, "Error extracting file " + fileName + " from " + zip.getAbsolutePath());
@@ -96,10 +123,9 @@ public class ZipUtils {
 		}
 	}
 
-	private static void unzipEntry(ZipFile zipFile, ZipEntry entry, File outputFile) throws IOException {
-		byte[] buffer = new byte[2048];
-		BufferedInputStream inputStream = new BufferedInputStream(zipFile.getInputStream(entry));
-		BufferedOutputStream outputStream = new BufferedOutputStream(new FileOutputStream(outputFile));
+	private static void unzipEntry(ZipFile zipFile, ZipEntry entry, File outputFile, byte[] buffer) throws IOException {
+		InputStream inputStream = zipFile.getInputStream(entry);
+		OutputStream outputStream = new FileOutputStream(outputFile);
 		try {
 			int length;
 			while ((length = inputStream.read(buffer, 0, buffer.length)) != -1) {
@@ -111,8 +137,8 @@ public class ZipUtils {
 		}
 	}
 
-	public static void unzipFile(File zip, File output, DownloadListener listener) throws IOException {
-		unzipFile(zip, output, null, listener);
+	public static List<ZipEntry> unzipFile(File zip, File output, DownloadListener listener) throws IOException {
+		return unzipFile(zip, output, null, listener);
 	}
 
 	/**
@@ -122,20 +148,39 @@ public class ZipUtils {
 	 * @param output       directory to unzip into
 	 * @param extractRules extractRules for this zip file. May be null indicating no rules.
 	 * @param listener     to update progress on - may be null for no progress indicator
+	 * @return the file entries that were extracted
 	 */
-	public static void unzipFile(File zip, File output, ExtractRules extractRules, DownloadListener listener) throws IOException {
+	public static List<ZipEntry> unzipFile(File zip, File output, ExtractRules extractRules, DownloadListener listener) throws IOException {
+		return unzipFile(zip, output, extractRules, listener, EXTRACT_THREADS);
+	}
+
+	/**
+	 * Unzips a file into the specified directory, spreading the entries over several threads.  Each thread
+	 * reads through its own handle on the zip, and progress for all of them is reported from the calling
+	 * thread.
+	 *
+	 * @param zip          file to unzip
+	 * @param output       directory to unzip into
+	 * @param extractRules extractRules for this zip file. May be null indicating no rules.
+	 * @param listener     to update progress on - may be null for no progress indicator
+	 * @param threads      most entries to extract at once - 1 extracts them one at a time on this thread
+	 * @return the file entries that were extracted
+	 */
+	public static List<ZipEntry> unzipFile(File zip, File output, ExtractRules extractRules, DownloadListener listener, int threads) throws IOException {
 		if (!zip.exists()) {
 			Utils.getLogger().log(Level.SEVERE, "File to unzip does not exist: " + zip.getAbsolutePath());
-			return;
+			return new ArrayList<ZipEntry>();
 		}
 		if (!output.exists()) {
 			output.mkdirs();
 		}
 
 		ZipFile zipFile = new ZipFile(zip);
-		int size = zipFile.size() + 1;
-		int progress = 1;
 		try {
+			int size = zipFile.size() + 1;
+			List<ZipEntry> files = new ArrayList<ZipEntry>();
+			Set<File> directories = new HashSet<File>();
+
 			Enumeration<? extends ZipEntry> entries = zipFile.entries();
 			while (entries.hasMoreElements()) {
 				ZipEntry entry = null;
@@ -151,26 +196,141 @@ public class ZipUtils {
 				if ((extractRules == null || extractRules.shouldExtract(entry.getName())) && !entry.getName().contains("../")) {
 					File outputFile = new File(output, entry.getName());
 
-					if (outputFile.getParentFile() != null) {
-						outputFile.getParentFile().mkdirs();
-					}
-
-					if (!entry.isDirectory()) {
-						unzipEntry(zipFile, entry, outputFile);
+					if (entry.isDirectory()) {
+						directories.add(outputFile);
+					} else {
+						if (outputFile.getParentFile() != null) {
+							directories.add(outputFile.getParentFile());
+						}
+						files.add(entry);
 					}
 				}
+			}
+
+			//Every directory is created up front, once, so the entries themselves only have to be written
+			for (File directory : directories) {
+				directory.mkdirs();
+			}
 
-				if (listener != null) {
-					float totalProgress = (float)progress / (float)size;
-					listener.stateChanged("Extracting " + entry.getName() + "...", totalProgress * 100.0f);
+			ExtractProgress progress = new ExtractProgress(size - files.size(), size, listener);
+
+			if (threads <= 1 || files.size() < MIN_PARALLEL_ENTRIES) {
+				byte[] buffer = new byte[EXTRACT_BUFFER_SIZE];
+				for (ZipEntry entry : files) {
+					unzipEntry(zipFile, entry, new File(output, entry.getName()), buffer);
+					progress.entryDone(entry);
+					progress.report();
 				}
-				progress++;
+			} else {
+				extractParallel(zip, output, files, progress, threads);
 			}
+
+			return files;
 		} finally {
 			zipFile.close();
 		}
 	}
 
+	private static void extractParallel(File zip, File output, List<ZipEntry> files, ExtractProgress progress, int threads) throws IOException {
+		AtomicInteger nextEntry = new AtomicInteger(0);
+		AtomicBoolean failed = new AtomicBoolean(false);
+
+		List<Future<Void>> workers = new ArrayList<Future<Void>>(threads);
+		for (int i = 0; i < Math.min(threads, files.size()); i++) {
+			workers.add(extractPool.submit(new ExtractWorker(zip, output, files, nextEntry, failed, progress)));
+		}
+
+		IOException failure = null;
+		for (Future<Void> worker : workers) {
+			while (true) {
+				try {
+					worker.get(PROGRESS_INTERVAL, TimeUnit.MILLISECONDS);
+					break;
+				} catch (TimeoutException ex) {
+					progress.report();
+				} catch (ExecutionException ex) {
+					if (failure == null) {
+						failure = (ex.getCause() instanceof IOException) ? (IOException) ex.getCause() : new ZipException("Failed to extract " + zip.getName() + ": " + ex.getCause());
+						failed.set(true);
+					}
+					break;
+				} catch (InterruptedException ex) {
+					failed.set(true);
+					Thread.currentThread().interrupt();
+					throw new ZipException("Interrupted while extracting " + zip.getName());
+				}
+			}
+		}
+
+		if (failure != null) {
+			throw failure;
+		}
+
+		progress.report();
+	}
+
+	private static class ExtractWorker implements Callable<Void> {
+		private final File zip;
+		private final File output;
+		private final List<ZipEntry> files;
+		private final AtomicInteger nextEntry;
+		private final AtomicBoolean failed;
+		private final ExtractProgress progress;
+
+		public ExtractWorker(File zip, File output, List<ZipEntry> files, AtomicInteger nextEntry, AtomicBoolean failed, ExtractProgress progress) {
+			this.zip = zip;
+			this.output = output;
+			this.files = files;
+			this.nextEntry = nextEntry;
+			this.failed = failed;
+			this.progress = progress;
+		}
+
+		@Override
+		public Void call() throws IOException {
+			ZipFile zipFile = new ZipFile(zip);
+			byte[] buffer = new byte[EXTRACT_BUFFER_SIZE];
+
+			try {
+				int index;
+				while (!failed.get() && (index = nextEntry.getAndIncrement()) < files.size()) {
+					ZipEntry entry = files.get(index);
+					unzipEntry(zipFile, entry, new File(output, entry.getName()), buffer);
+					progress.entryDone(entry);
+				}
+			} finally {
+				zipFile.close();
+			}
+
+			return null;
+		}
+	}
+
+	private static class ExtractProgress {
+		private final AtomicInteger done;
+		private final int size;
+		private final DownloadListener listener;
+		private volatile String lastEntry = "";
+
+		public ExtractProgress(int done, int size, DownloadListener listener) {
+			this.done = new AtomicInteger(done);
+			this.size = size;
+			this.listener = listener;
+		}
+
+		public void entryDone(ZipEntry entry) {
+			lastEntry = entry.getName();
+			done.incrementAndGet();
+		}
+
+		public void report() {
+			if (listener != null) {
+				float totalProgress = (float)done.get() / (float)size;
+				listener.stateChanged("Extracting " + lastEntry + "...", totalProgress * 100.0f);
+			}
+		}
+	}
+
 	public static void copyMinecraftJar(File minecraft, File output) throws IOException {
 		String[] security = {"MOJANG_C.DSA",
 							"MOJANG_C.SF",
@@ -4,7 +4,7 @@ import org.apache.commons.io.FileUtils;
 
 import java.io.File;
 
-public class FileSizeVerifier implements IFileVerifier {
+public class FileSizeVerifier implements IStreamingFileVerifier {
     private long size;
 
     public FileSizeVerifier(long size) {
@@ -15,4 +15,24 @@ public class FileSizeVerifier implements IFileVerifier {
     public boolean isFileValid(File file) {
         return FileUtils.sizeOf(file) == size;
     }
+
+    @Override
+    public boolean needsMD5() {
+        return false;
+    }
+
+    @Override
+    public boolean isStreamValid(String md5, long length) {
+        return length == size;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return (other instanceof FileSizeVerifier) && ((FileSizeVerifier) other).size == size;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (size ^ (size >>> 32));
+    }
 }
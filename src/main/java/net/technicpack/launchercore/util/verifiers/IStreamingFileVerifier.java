@@ -0,0 +1,18 @@
+package net.technicpack.launchercore.util.verifiers;
+
+/**
+ * A verifier that can check a download from what was seen while it was being written, instead of reading
+ * the finished file back from disk.
+ */
+public interface IStreamingFileVerifier extends IFileVerifier {
+    /**
+     * Whether the download has to hash its contents as they come in for this verifier to work.
+     */
+    boolean needsMD5();
+
+    /**
+     * @param md5    The md5 of the downloaded contents, or null if it wasn't computed
+     * @param length The length of the downloaded file
+     */
+    boolean isStreamValid(String md5, long length);
+}
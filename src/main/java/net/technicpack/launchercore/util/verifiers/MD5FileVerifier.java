@@ -1,10 +1,10 @@
 package net.technicpack.launchercore.util.verifiers;
 
-import net.technicpack.launchercore.util.MD5Utils;
+import net.technicpack.launchercore.util.DigestIndex;
 
 import java.io.File;
 
-public class MD5FileVerifier implements IFileVerifier {
+public class MD5FileVerifier implements IStreamingFileVerifier {
     private String md5Hash;
 
     public MD5FileVerifier(String md5Hash) {
@@ -15,9 +15,37 @@ public class MD5FileVerifier implements IFileVerifier {
         if (md5Hash == null || md5Hash.isEmpty())
             return false;
 
-        String resultMD5 = MD5Utils.getMD5(file);
+        String resultMD5 = DigestIndex.getInstance().getMD5(file);
 
         System.out.println("Expected MD5: " + md5Hash + " Calculated MD5: " + resultMD5);
         return (md5Hash.equalsIgnoreCase(resultMD5));
     }
+
+    @Override
+    public boolean needsMD5() {
+        return true;
+    }
+
+    @Override
+    public boolean isStreamValid(String md5, long length) {
+        if (md5Hash == null || md5Hash.isEmpty())
+            return false;
+
+        System.out.println("Expected MD5: " + md5Hash + " Downloaded MD5: " + md5);
+        return (md5Hash.equalsIgnoreCase(md5));
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof MD5FileVerifier))
+            return false;
+
+        String otherHash = ((MD5FileVerifier) other).md5Hash;
+        return (md5Hash == null) ? (otherHash == null) : md5Hash.equalsIgnoreCase(otherHash);
+    }
+
+    @Override
+    public int hashCode() {
+        return (md5Hash == null) ? 0 : md5Hash.toLowerCase().hashCode();
+    }
 }
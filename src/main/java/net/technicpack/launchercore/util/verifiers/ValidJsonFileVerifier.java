@@ -1,25 +1,46 @@
 package net.technicpack.launchercore.util.verifiers;
 
-import com.google.gson.JsonObject;
-import net.technicpack.launchercore.util.Utils;
-import org.apache.commons.io.FileUtils;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.apache.commons.io.IOUtils;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
 import java.nio.charset.Charset;
 
 public class ValidJsonFileVerifier implements IFileVerifier {
     @Override
     public boolean isFileValid(File file) {
+        JsonReader reader = null;
         try {
-            String json = FileUtils.readFileToString(file, Charset.forName("UTF-8"));
-            JsonObject obj = Utils.getMojangGson().fromJson(json, JsonObject.class);
+            //Walk the tokens without keeping any of them, so checking a large file doesn't mean holding all of it
+            reader = new JsonReader(new BufferedReader(new InputStreamReader(new FileInputStream(file), Charset.forName("UTF-8"))));
+            reader.setLenient(true);
 
-            return (obj != null);
+            if (reader.peek() != JsonToken.BEGIN_OBJECT)
+                return false;
+
+            reader.skipValue();
+            return true;
         } catch (Exception ex) {
             System.out.println("An exception was raised while verifying "+file.getAbsolutePath()+"- this probably just means the file is invalid, in which case this is not an error:");
             ex.printStackTrace();
+        } finally {
+            IOUtils.closeQuietly(reader);
         }
 
         return false;
     }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ValidJsonFileVerifier;
+    }
+
+    @Override
+    public int hashCode() {
+        return ValidJsonFileVerifier.class.hashCode();
+    }
 }
@@ -25,4 +25,14 @@ public class ValidZipFileVerifier implements IFileVerifier {
             }
         }
     }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ValidZipFileVerifier;
+    }
+
+    @Override
+    public int hashCode() {
+        return ValidZipFileVerifier.class.hashCode();
+    }
 }